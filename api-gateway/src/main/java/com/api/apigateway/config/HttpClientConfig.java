@@ -0,0 +1,101 @@
+package com.api.apigateway.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Connection pools for upstream calls, one for proxied routes and one for the gateway's own WebClient.
+ * <p>
+ * Both are sized from {@code spring.cloud.gateway.httpclient.pool}. Max connections and pending acquires
+ * apply per upstream host. Leases are LIFO by default, so the most recently used connection goes out first
+ * and connections past the idle time are evicted instead of being kept warm by round-robin reuse. With
+ * {@code metrics: true}, Reactor Netty publishes each pool's total, active, idle and pending-acquire gauges
+ * to Micrometer ({@code reactor.netty.connection.provider.*}, tagged by pool name and remote address).
+ */
+@Configuration
+public class HttpClientConfig {
+
+    private static final String WEB_CLIENT_POOL = "gateway-webclient";
+
+    @Value("${gateway.http-client.pool.lease-strategy:lifo}")
+    private String leaseStrategy;
+
+    @Value("${gateway.http-client.pool.pending-acquire-max-count:1000}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${gateway.http-client.protocols:HTTP11}")
+    private HttpProtocol[] protocols;
+
+    /**
+     * Replaces the gateway's own HttpClientFactory so routes use our pool; SSL, proxy and customizers still apply.
+     */
+    @Bean
+    public HttpClientFactory routeHttpClientFactory(HttpClientProperties properties,
+                                                    ServerProperties serverProperties,
+                                                    HttpClientSslConfigurer sslConfigurer,
+                                                    List<HttpClientCustomizer> customizers) {
+        return new HttpClientFactory(properties, serverProperties, sslConfigurer, customizers) {
+            @Override
+            protected ConnectionProvider buildConnectionProvider(HttpClientProperties httpClientProperties) {
+                return connectionProvider(httpClientProperties.getPool().getName(), httpClientProperties.getPool());
+            }
+        };
+    }
+
+    /**
+     * HTTP/2 for routes: {@code H2C} alone needs upstreams that accept prior knowledge, {@code H2C, HTTP11} upgrades.
+     */
+    @Bean
+    public HttpClientCustomizer protocolCustomizer() {
+        return httpClient -> httpClient.protocol(protocols);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider webClientConnectionProvider(HttpClientProperties properties) {
+        return connectionProvider(WEB_CLIENT_POOL, properties.getPool());
+    }
+
+    private ConnectionProvider connectionProvider(String name, HttpClientProperties.Pool pool) {
+        if (pool.getType() == HttpClientProperties.Pool.PoolType.DISABLED) {
+            return ConnectionProvider.newConnection();
+        }
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(name);
+        if (pool.getType() == HttpClientProperties.Pool.PoolType.FIXED) {
+            builder.maxConnections(pool.getMaxConnections())
+                    .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                    .pendingAcquireTimeout(Duration.ofMillis(pool.getAcquireTimeout()));
+        } else {
+            // Elastic never queues, which is also why it hides pending acquires; prefer fixed in production
+            builder.maxConnections(Integer.MAX_VALUE)
+                    .pendingAcquireTimeout(Duration.ZERO)
+                    .pendingAcquireMaxCount(-1);
+        }
+        if (pool.getMaxIdleTime() != null) {
+            builder.maxIdleTime(pool.getMaxIdleTime());
+        }
+        if (pool.getMaxLifeTime() != null) {
+            builder.maxLifeTime(pool.getMaxLifeTime());
+        }
+        if (pool.getEvictionInterval() != null && !pool.getEvictionInterval().isZero()) {
+            builder.evictInBackground(pool.getEvictionInterval());
+        }
+        if ("lifo".equalsIgnoreCase(leaseStrategy)) {
+            builder.lifo();
+        } else {
+            builder.fifo();
+        }
+        return builder.metrics(pool.isMetrics()).build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.api.apigateway.config;
+
+import com.api.apigateway.loadbalancer.PeakEwmaLoadBalancer;
+import com.api.apigateway.loadbalancer.UpstreamInstanceStats;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Every {@code lb://} service is balanced by {@link PeakEwmaLoadBalancer}. Instances come from discovery,
+ * or from the static {@code spring.cloud.discovery.client.simple.instances} list when there is no registry.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LoadBalancerConfig.PeakEwmaConfiguration.class)
+public class LoadBalancerConfig {
+
+    // Not a @Configuration, it is loaded into each service's own load balancer context, not the main one
+    static class PeakEwmaConfiguration {
+
+        @Bean
+        public ReactorLoadBalancer<ServiceInstance> peakEwmaLoadBalancer(Environment environment,
+                                                                         LoadBalancerClientFactory loadBalancerClientFactory,
+                                                                         UpstreamInstanceStats instanceStats) {
+            String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+            return new PeakEwmaLoadBalancer(
+                    loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                    serviceId, instanceStats);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.api.apigateway.config;
+
+import com.api.apigateway.ratelimit.LocalRateLimiter;
+import com.api.apigateway.ratelimit.QuotaTiers;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class RateLimiterConfig {
+
+    /**
+     * Selected per route with {@code rate-limiter: "#{@localRateLimiter}"}. It is not an autowire candidate so the
+     * RequestRateLimiter filter keeps the Redis limiter as its default for routes that do not opt in.
+     */
+    @Bean(autowireCandidate = false)
+    public LocalRateLimiter localRateLimiter(ConfigurationService configurationService,
+                                             ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+                                             QuotaTiers quotaTiers,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${gateway.rate-limiter.local.max-keys:100000}") long maxKeys,
+                                             @Value("${gateway.rate-limiter.local.idle-timeout:5m}") Duration idleTimeout,
+                                             @Value("${gateway.rate-limiter.local.sync.enabled:false}") boolean syncEnabled,
+                                             @Value("${gateway.rate-limiter.local.sync.interval:1s}") Duration syncInterval) {
+        return new LocalRateLimiter(configurationService, reactiveRedisTemplate, quotaTiers, meterRegistry,
+                maxKeys, idleTimeout, syncEnabled, syncInterval);
+    }
+}
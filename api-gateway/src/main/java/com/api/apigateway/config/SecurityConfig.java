@@ -1,62 +1,86 @@
 package com.api.apigateway.config;
 
+import com.api.apigateway.filter.JwtValidationFilter;
+import com.api.apigateway.filter.PublicPathMatcher;
+import com.api.apigateway.service.JwtValidationService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
-import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
 import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
 
+    // Same claim conversion Spring's Nimbus decoders apply, so the Jwt looks as if a decoder had produced it
+    private static final Converter<Map<String, Object>, Map<String, Object>> CLAIM_SET_CONVERTER =
+            MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+
     @Bean
-    public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+    public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http, JwtValidationService jwtValidationService,
+                                                            PublicPathMatcher publicPathMatcher) {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
             .authorizeExchange(authz -> authz
-                .pathMatchers("/actuator/health").permitAll()
-                .pathMatchers("/actuator/info").permitAll()
-                .pathMatchers("/public/**").permitAll()
-                .pathMatchers("/auth/**").permitAll()
-                .pathMatchers("/fallback/**").permitAll()
+                // gateway.public-paths, the same list JwtValidationFilter skips
+                .matchers(publicPathMatcher).permitAll()
                 .pathMatchers("/api/**").authenticated()
                 .anyExchange().authenticated()
             )
             .oauth2ResourceServer(oauth2 -> oauth2
-                .jwt(jwt -> jwt
-                    .jwtAuthenticationConverter(grantedAuthoritiesExtractor())
-                )
+                // Verify through JwtValidationService instead of a second decoder, JwtValidationFilter reuses the result
+                .authenticationManagerResolver(exchange -> Mono.just(authenticationManager(exchange, jwtValidationService)))
             );
 
         return http.build();
     }
 
-    private Converter<Jwt, Mono<? extends AbstractAuthenticationToken>> grantedAuthoritiesExtractor() {
-        return jwt -> {
-            // Validate the 'aud' claim to ensure it matches your expected audience
-            List<String> audience = jwt.getAudience();
-            if (audience == null || !audience.contains("api-gateway")) {
-                return Mono.error(new InvalidBearerTokenException("Invalid audience"));
-            }
-
-            Collection<GrantedAuthority> authorities = Collections.emptyList();
-            return Mono.just(new JwtAuthenticationToken(jwt, authorities));
+    private ReactiveAuthenticationManager authenticationManager(ServerWebExchange exchange, JwtValidationService jwtValidationService) {
+        return authentication -> {
+            String token = ((BearerTokenAuthenticationToken) authentication).getToken();
+            // Signature, issuer, audience, expiry and revocation are all checked by the validation service
+            return jwtValidationService.validateToken(token)
+                    .flatMap(result -> {
+                        if (!result.isValid()) {
+                            return Mono.error(new InvalidBearerTokenException(result.getMessage()));
+                        }
+                        exchange.getAttributes().put(JwtValidationFilter.VALIDATION_RESULT_ATTRIBUTE, result);
+                        return Mono.just(toAuthentication(token, result));
+                    });
         };
     }
 
+    private JwtAuthenticationToken toAuthentication(String token, JwtValidationService.JWTValidationResult result) {
+        Map<String, Object> claims = CLAIM_SET_CONVERTER.convert(result.getClaimsSet().getClaims());
+        Jwt jwt = new Jwt(token, (Instant) claims.get(JwtClaimNames.IAT), (Instant) claims.get(JwtClaimNames.EXP),
+                result.getHeaders(), claims);
+
+        Collection<GrantedAuthority> authorities = result.getAuthorities().stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        return new JwtAuthenticationToken(jwt, authorities);
+    }
+
     private org.springframework.web.cors.reactive.CorsConfigurationSource corsConfigurationSource() {
         var configuration = new org.springframework.web.cors.CorsConfiguration();
         configuration.setAllowedOriginPatterns(Collections.singletonList("http://localhost:3000"));
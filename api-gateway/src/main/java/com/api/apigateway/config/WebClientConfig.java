@@ -1,16 +1,33 @@
 package com.api.apigateway.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
     @Bean
-    public WebClient webClient() {
+    public WebClient webClient(@Qualifier("webClientConnectionProvider") ConnectionProvider connectionProvider,
+                               HttpClientProperties httpClientProperties,
+                               @Value("${gateway.http-client.protocols:HTTP11}") HttpProtocol[] protocols) {
+        // Pooled like the routes (see HttpClientConfig), but in its own pool so JWKS and batch calls show up separately
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .protocol(protocols);
+        if (httpClientProperties.getConnectTimeout() != null) {
+            httpClient = httpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, httpClientProperties.getConnectTimeout());
+        }
         return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(2 * 1024 * 1024)) // 2MB buffer
                 .build();
     }
-} 
\ No newline at end of file
+}
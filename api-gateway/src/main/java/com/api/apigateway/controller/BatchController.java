@@ -0,0 +1,100 @@
+package com.api.apigateway.controller;
+
+import com.api.apigateway.filter.JwtValidationFilter;
+import com.api.apigateway.ratelimit.PrincipalKeyResolver;
+import com.api.apigateway.service.BatchService;
+import com.api.apigateway.service.ErrorResponseCatalogue;
+import com.api.apigateway.service.JwtValidationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Composite endpoint for screens that need several backend resources at once, such as the user dashboard.
+ * <p>
+ * {@code POST /api/batch} with {@code {"parts": {"profile": {"path": "/api/user/profile", "timeoutMs": 500}, ...}}}
+ * returns {@code {"profile": {"status": 200, "body": {...}}, ...}} in one round trip.
+ */
+@RestController
+@RequestMapping("/api/batch")
+public class BatchController {
+
+    private final BatchService batchService;
+
+    private final JwtValidationFilter jwtValidationFilter;
+
+    private final ErrorResponseCatalogue errorResponseCatalogue;
+
+    private final PrincipalKeyResolver keyResolver;
+
+    private final int maxParts;
+
+    public BatchController(BatchService batchService,
+                           JwtValidationFilter jwtValidationFilter,
+                           ErrorResponseCatalogue errorResponseCatalogue,
+                           PrincipalKeyResolver keyResolver,
+                           @Value("${gateway.batch.max-parts:10}") int maxParts) {
+        this.batchService = batchService;
+        this.jwtValidationFilter = jwtValidationFilter;
+        this.errorResponseCatalogue = errorResponseCatalogue;
+        this.keyResolver = keyResolver;
+        this.maxParts = maxParts;
+    }
+
+    @PostMapping
+    public Mono<Void> batch(@RequestBody BatchRequest request, ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (request.parts() == null || request.parts().isEmpty() || request.parts().size() > maxParts) {
+            return errorResponseCatalogue.write(response, HttpStatus.BAD_REQUEST, errorResponseCatalogue.forStatus(
+                    HttpStatus.BAD_REQUEST, "A batch must have between 1 and " + maxParts + " parts"));
+        }
+        if (request.parts().values().stream().anyMatch(Objects::isNull)) {
+            return errorResponseCatalogue.write(response, HttpStatus.BAD_REQUEST, errorResponseCatalogue.forStatus(
+                    HttpStatus.BAD_REQUEST, "Every batch part must be an object with a path"));
+        }
+
+        // Set by the security chain, which has already verified the token for the whole batch
+        JwtValidationService.JWTValidationResult validationResult =
+                exchange.getAttribute(JwtValidationFilter.VALIDATION_RESULT_ATTRIBUTE);
+        if (validationResult == null || !validationResult.isValid()) {
+            return errorResponseCatalogue.write(response, HttpStatus.UNAUTHORIZED,
+                    errorResponseCatalogue.forStatus(HttpStatus.UNAUTHORIZED, "Missing JWT token"));
+        }
+
+        HttpHeaders forwardedHeaders = forwardedHeaders(exchange.getRequest(), validationResult);
+        // Parts are charged to their routes' rate limiters under the key the routes themselves would use
+        return keyResolver.resolve(exchange).flatMap(rateLimitKey -> {
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return response.writeAndFlushWith(batchService
+                    .execute(request.parts(), forwardedHeaders, rateLimitKey, response.bufferFactory())
+                    .map(Mono::just));
+        });
+    }
+
+    private HttpHeaders forwardedHeaders(ServerHttpRequest request, JwtValidationService.JWTValidationResult validationResult) {
+        // Backends are resource servers too and need the token, plus the user headers the gateway routes add
+        HttpHeaders headers = new HttpHeaders();
+        jwtValidationFilter.addUserInfoToHeaders(request, validationResult).getHeaders().forEach((name, values) -> {
+            if (HttpHeaders.AUTHORIZATION.equalsIgnoreCase(name) || name.startsWith("X-User-")) {
+                headers.put(name, values);
+            }
+        });
+        return headers;
+    }
+
+    public record BatchRequest(Map<String, BatchService.Part> parts) {
+    }
+}
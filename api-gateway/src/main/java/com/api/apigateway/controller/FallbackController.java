@@ -1,71 +1,71 @@
 package com.api.apigateway.controller;
 
+import com.api.apigateway.service.ErrorResponseCatalogue;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/fallback")
 public class FallbackController {
 
+    // Encoded once, these are served for every request while a backend is down
+    private final ErrorResponseCatalogue.ErrorBody authUnavailable;
+    private final ErrorResponseCatalogue.ErrorBody resourceUnavailable;
+    private final ErrorResponseCatalogue.ErrorBody generalUnavailable;
+    private final ErrorResponseCatalogue.ErrorBody userServiceUnavailable;
+    private final ErrorResponseCatalogue.ErrorBody adminServiceUnavailable;
+
+    public FallbackController(ErrorResponseCatalogue errorResponseCatalogue) {
+        this.authUnavailable = errorResponseCatalogue.define(unavailable("Authentication service is currently unavailable", "AUTH_SERVICE_DOWN"));
+        this.resourceUnavailable = errorResponseCatalogue.define(unavailable("Resource service is currently unavailable", "RESOURCE_SERVICE_DOWN"));
+        this.generalUnavailable = errorResponseCatalogue.define(unavailable("Service is currently unavailable", "SERVICE_DOWN"));
+        this.userServiceUnavailable = errorResponseCatalogue.define(unavailable("User Service is currently unavailable", "SERVICE_DOWN"));
+        this.adminServiceUnavailable = errorResponseCatalogue.define(unavailable("Admin Service is currently unavailable", "SERVICE_DOWN"));
+    }
+
     @GetMapping("/auth")
-    public ResponseEntity<Map<String, Object>> authFallback() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", "SERVICE_UNAVAILABLE");
-        response.put("message", "Authentication service is currently unavailable");
-        response.put("error", "AUTH_SERVICE_DOWN");
-        
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    public ResponseEntity<byte[]> authFallback() {
+        return serviceUnavailable(authUnavailable);
     }
 
     @GetMapping("/resource")
-    public ResponseEntity<Map<String, Object>> resourceFallback() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", "SERVICE_UNAVAILABLE");
-        response.put("message", "Resource service is currently unavailable");
-        response.put("error", "RESOURCE_SERVICE_DOWN");
-        
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    public ResponseEntity<byte[]> resourceFallback() {
+        return serviceUnavailable(resourceUnavailable);
     }
 
     @GetMapping("/general")
-    public ResponseEntity<Map<String, Object>> generalFallback() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", "SERVICE_UNAVAILABLE");
-        response.put("message", "Service is currently unavailable");
-        response.put("error", "SERVICE_DOWN");
-        
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    public ResponseEntity<byte[]> generalFallback() {
+        return serviceUnavailable(generalUnavailable);
     }
 
     @GetMapping("/user")
-    public ResponseEntity<Map<String, Object>> userServiceFallback() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", "SERVICE_UNAVAILABLE");
-        response.put("message", "User Service is currently unavailable");
-        response.put("error", "SERVICE_DOWN");
-        
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    public ResponseEntity<byte[]> userServiceFallback() {
+        return serviceUnavailable(userServiceUnavailable);
     }
 
     @GetMapping("/admin")
-    public ResponseEntity<Map<String, Object>> adminServiceFallback() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", "SERVICE_UNAVAILABLE");
-        response.put("message", "Admin Service is currently unavailable");
-        response.put("error", "SERVICE_DOWN");
-        
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    public ResponseEntity<byte[]> adminServiceFallback() {
+        return serviceUnavailable(adminServiceUnavailable);
+    }
+
+    private static ResponseEntity<byte[]> serviceUnavailable(ErrorResponseCatalogue.ErrorBody body) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body.bytes());
+    }
+
+    private static Map<String, Object> unavailable(String message, String error) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("status", "SERVICE_UNAVAILABLE");
+        fields.put("message", message);
+        fields.put("error", error);
+        return fields;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,224 @@
+package com.api.apigateway.filter;
+
+import com.api.apigateway.ratelimit.GradientConcurrencyLimit;
+import com.api.apigateway.service.ErrorResponseCatalogue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caps the calls a route has in flight upstream with a {@link GradientConcurrencyLimit} that adapts to the
+ * upstream's latency, and rejects the excess at once with a 503 instead of letting it queue at the backend.
+ * <p>
+ * Place it before the route's CircuitBreaker: shed requests then never reach the breaker, and the breaker's
+ * fallback responses (open breaker, time limiter) count as drops that lower the limit. The limit is kept per
+ * route id, so it survives route refreshes as long as the route's settings are unchanged.
+ */
+@Component
+public class AdaptiveConcurrencyFilter extends AbstractGatewayFilterFactory<AdaptiveConcurrencyFilter.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyFilter.class);
+
+    private final Map<String, RouteLimit> limits = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    private final ErrorResponseCatalogue errorResponseCatalogue;
+
+    private final ErrorResponseCatalogue.ErrorBody overloaded;
+
+    public AdaptiveConcurrencyFilter(MeterRegistry meterRegistry, ErrorResponseCatalogue errorResponseCatalogue) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.errorResponseCatalogue = errorResponseCatalogue;
+        this.overloaded = errorResponseCatalogue.forStatus(HttpStatus.SERVICE_UNAVAILABLE,
+                "Service is at capacity, please retry shortly");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        RouteLimit routeLimit = limits.compute(routeId, (id, existing) ->
+                existing != null && existing.settings.equals(config.settings()) ? existing : newRouteLimit(id, config));
+        registerGauges(routeId);
+
+        return (exchange, chain) -> {
+            GradientConcurrencyLimit limit = routeLimit.limit;
+            if (!limit.tryAcquire()) {
+                routeLimit.rejected.increment();
+                logger.debug("Shedding request to {} at concurrency limit {}", routeId, limit.limit());
+                exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                return errorResponseCatalogue.write(exchange.getResponse(), HttpStatus.SERVICE_UNAVAILABLE, overloaded);
+            }
+
+            routeLimit.accepted.increment();
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        HttpStatusCode status = exchange.getResponse().getStatusCode();
+                        if (signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError())) {
+                            limit.onDropped();
+                        } else if (signal == SignalType.CANCEL) {
+                            limit.onIgnored();
+                        } else {
+                            limit.onSuccess(System.nanoTime() - start);
+                        }
+                    });
+        };
+    }
+
+    /**
+     * Runs a call made outside the route, such as a batch part, under the route's limit. When the route is at its
+     * limit the call is not subscribed and {@code rejected} is returned instead; results matching {@code failed}
+     * count as drops. Calls to routes without this filter run as they are.
+     */
+    public <T> Mono<T> limit(String routeId, Mono<T> call, Predicate<T> failed, Supplier<T> rejected) {
+        RouteLimit routeLimit = limits.get(routeId);
+        if (routeLimit == null) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            GradientConcurrencyLimit limit = routeLimit.limit;
+            if (!limit.tryAcquire()) {
+                routeLimit.rejected.increment();
+                return Mono.fromSupplier(rejected);
+            }
+
+            routeLimit.accepted.increment();
+            long start = System.nanoTime();
+            AtomicReference<T> result = new AtomicReference<>();
+            return call.doOnNext(result::set)
+                    .doFinally(signal -> {
+                        T value = result.get();
+                        if (value != null) {
+                            if (failed.test(value)) {
+                                limit.onDropped();
+                            } else {
+                                limit.onSuccess(System.nanoTime() - start);
+                            }
+                        } else if (signal == SignalType.CANCEL) {
+                            limit.onIgnored();
+                        } else {
+                            limit.onDropped();
+                        }
+                    });
+        });
+    }
+
+    private RouteLimit newRouteLimit(String routeId, Config config) {
+        Settings settings = config.settings();
+        logger.info("Adaptive concurrency limit for route {}: {}", routeId, settings);
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(settings.initialLimit(), settings.minLimit(),
+                settings.maxLimit(), settings.rttTolerance(), settings.smoothing(), settings.longWindow(),
+                settings.queueSize(), settings.backoffRatio());
+        return new RouteLimit(settings, limit, counter(routeId, "accepted"), counter(routeId, "rejected"));
+    }
+
+    // Gauges look the limit up by route so they follow it when a settings change replaces it
+    private void registerGauges(String routeId) {
+        Gauge.builder("gateway.concurrency.limit", limits, m -> m.get(routeId).limit.limit())
+                .description("Current adaptive concurrency limit")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in-flight", limits, m -> m.get(routeId).limit.inFlight())
+                .description("Upstream calls holding a concurrency slot")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.baseline-latency", limits, m -> m.get(routeId).limit.longRttNanos() / 1_000_000.0)
+                .description("Long-term average upstream latency the limit compares against")
+                .baseUnit("milliseconds")
+                .tag("route", routeId)
+                .register(meterRegistry);
+    }
+
+    private Counter counter(String routeId, String result) {
+        return Counter.builder("gateway.concurrency.requests")
+                .description("Requests by whether they got a concurrency slot or were shed")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record RouteLimit(Settings settings, GradientConcurrencyLimit limit, Counter accepted, Counter rejected) {
+    }
+
+    private record Settings(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing,
+                            int longWindow, int queueSize, double backoffRatio) {
+    }
+
+    public static class Config implements HasRouteId {
+
+        private String routeId;
+
+        private int initialLimit = 20;
+
+        private int minLimit = 5;
+
+        private int maxLimit = 200;
+
+        // How far latency may rise above the baseline before the limit shrinks, 2.0 allows double
+        private double rttTolerance = 1.5;
+
+        // Fraction of each step towards the new target, lower reacts slower but flaps less
+        private double smoothing = 0.2;
+
+        // Samples averaged into the baseline latency
+        private int longWindow = 600;
+
+        // Extra slots allowed on top of what the gradient says, lets the limit probe upwards
+        private int queueSize = 4;
+
+        // Multiplier applied to the limit for each failed or timed out call
+        private double backoffRatio = 0.9;
+
+        @Override
+        public String getRouteId() { return routeId; }
+        @Override
+        public void setRouteId(String routeId) { this.routeId = routeId; }
+
+        public int getInitialLimit() { return initialLimit; }
+        public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+
+        public int getMinLimit() { return minLimit; }
+        public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+
+        public int getMaxLimit() { return maxLimit; }
+        public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+
+        public double getRttTolerance() { return rttTolerance; }
+        public void setRttTolerance(double rttTolerance) { this.rttTolerance = rttTolerance; }
+
+        public double getSmoothing() { return smoothing; }
+        public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+
+        public int getLongWindow() { return longWindow; }
+        public void setLongWindow(int longWindow) { this.longWindow = longWindow; }
+
+        public int getQueueSize() { return queueSize; }
+        public void setQueueSize(int queueSize) { this.queueSize = queueSize; }
+
+        public double getBackoffRatio() { return backoffRatio; }
+        public void setBackoffRatio(double backoffRatio) { this.backoffRatio = backoffRatio; }
+
+        private Settings settings() {
+            return new Settings(initialLimit, minLimit, maxLimit, rttTolerance, smoothing, longWindow, queueSize, backoffRatio);
+        }
+    }
+}
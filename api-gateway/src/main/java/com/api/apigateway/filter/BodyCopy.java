@@ -0,0 +1,43 @@
+package com.api.apigateway.filter;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Copies body buffers as they stream past without consuming them, giving up once the copy would exceed a size limit.
+ */
+final class BodyCopy {
+
+    private final long maxBytes;
+
+    private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    BodyCopy(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns false once the body has outgrown the limit; nothing more is copied then.
+     */
+    boolean append(DataBuffer buffer) {
+        if (bytes == null) {
+            return false;
+        }
+        int length = buffer.readableByteCount();
+        if (bytes.size() + (long) length > maxBytes) {
+            bytes = null;
+            return false;
+        }
+        byte[] chunk = new byte[length];
+        buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(chunk), 0, length);
+        bytes.write(chunk, 0, length);
+        return true;
+    }
+
+    // Null once the body was too large to keep
+    byte[] toByteArray() {
+        return bytes != null ? bytes.toByteArray() : null;
+    }
+}
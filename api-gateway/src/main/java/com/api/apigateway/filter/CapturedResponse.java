@@ -0,0 +1,67 @@
+package com.api.apigateway.filter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A complete upstream response held in memory so it can be written again to other exchanges.
+ */
+final class CapturedResponse {
+
+    // Headers that describe the original connection or user session rather than the response itself
+    private static final Set<String> CONNECTION_HEADERS = Set.of(
+            HttpHeaders.SET_COOKIE.toLowerCase(), HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(), HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.DATE.toLowerCase(), "keep-alive");
+
+    private final HttpStatusCode status;
+
+    private final HttpHeaders headers;
+
+    private final byte[] body;
+
+    private final long capturedAt = System.nanoTime();
+
+    CapturedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        this.status = status;
+        this.headers = copyOf(headers);
+        this.body = body;
+    }
+
+    HttpStatusCode getStatus() {
+        return status;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    Duration age() {
+        return Duration.ofNanos(System.nanoTime() - capturedAt);
+    }
+
+    /**
+     * Copies status, headers and body onto the response. Marker headers set beforehand are kept.
+     */
+    Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setStatusCode(status);
+        response.getHeaders().putAll(headers);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static HttpHeaders copyOf(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (!CONNECTION_HEADERS.contains(name.toLowerCase())) {
+                copy.put(name, List.copyOf(values));
+            }
+        });
+        return HttpHeaders.readOnlyHttpHeaders(copy);
+    }
+}
@@ -1,6 +1,8 @@
 package com.api.apigateway.filter;
 
+import com.api.apigateway.service.ErrorResponseCatalogue;
 import com.api.apigateway.service.JwtValidationService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,22 +16,40 @@ import org.springframework.util.StringUtils;
 import reactor.core.publisher.Mono;
 
 import java.text.ParseException;
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 
 @Component
 public class JwtValidationFilter extends AbstractGatewayFilterFactory<JwtValidationFilter.Config> {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtValidationFilter.class);
 
+    /**
+     * Exchange attribute holding the validation result. Set by the security chain's authentication manager or by this
+     * filter, and read by later filters such as the rate limit key resolver.
+     */
+    public static final String VALIDATION_RESULT_ATTRIBUTE = JwtValidationFilter.class.getName() + ".validationResult";
+
     @Autowired
     private JwtValidationService jwtValidationService;
 
+    @Autowired
+    private PublicPathMatcher publicPathMatcher;
+
+    @Autowired
+    private ErrorResponseCatalogue errorResponseCatalogue;
+
     public JwtValidationFilter() {
         super(Config.class);
     }
 
+    // Pre-encode the fixed validation failures; any other message is encoded per response
+    @PostConstruct
+    public void defineErrors() {
+        for (String message : new String[]{JwtValidationService.INVALID_TOKEN, JwtValidationService.REVOKED_TOKEN,
+                JwtValidationService.REVOCATION_UNAVAILABLE}) {
+            errorResponseCatalogue.forStatus(HttpStatus.UNAUTHORIZED, message);
+        }
+    }
+
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
@@ -37,10 +57,9 @@ public class JwtValidationFilter extends AbstractGatewayFilterFactory<JwtValidat
             ServerHttpResponse response = exchange.getResponse();
 
             String path = request.getPath().value();
-            logger.info("Incoming request path: {}", path);
 
-            if (isPublicEndpoint(path)) {
-                logger.info("Skipping JWT validation for public endpoint: {}", path);
+            if (publicPathMatcher.isPublic(path)) {
+                logger.debug("Skipping JWT validation for public endpoint: {}", path);
                 return chain.filter(exchange);
             }
 
@@ -50,17 +69,30 @@ public class JwtValidationFilter extends AbstractGatewayFilterFactory<JwtValidat
                 return createErrorResponse(response, "Missing JWT token", HttpStatus.UNAUTHORIZED);
             }
 
-            logger.info("Validating JWT token for request to {}", path);
+            // The security chain has usually verified this token already, only validate when it has not
+            JwtValidationService.JWTValidationResult verified = exchange.getAttribute(VALIDATION_RESULT_ATTRIBUTE);
+            Mono<JwtValidationService.JWTValidationResult> validation;
+            if (verified != null) {
+                validation = Mono.just(verified);
+            } else {
+                logger.debug("Validating JWT token for request to {}", path);
+                validation = jwtValidationService.validateToken(token);
+            }
 
-            return jwtValidationService.validateToken(token)
+            return validation
                     .flatMap(validationResult -> {
                         if (!validationResult.isValid()) {
                             logger.warn("JWT validation failed: {}", validationResult.getMessage());
-                            return createErrorResponse(response, validationResult.getMessage(), HttpStatus.UNAUTHORIZED);
+                            // Can carry exception text from the token, so it is not added to the catalogue
+                            return errorResponseCatalogue.write(response, HttpStatus.UNAUTHORIZED,
+                                    errorResponseCatalogue.forMessage(HttpStatus.UNAUTHORIZED, validationResult.getMessage()));
                         }
 
-                        logger.info("JWT validated successfully for user: {}", validationResult.getClaimsSet().getSubject());
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("JWT validated for user {} on {}", validationResult.getClaimsSet().getSubject(), path);
+                        }
 
+                        exchange.getAttributes().put(VALIDATION_RESULT_ATTRIBUTE, validationResult);
                         ServerHttpRequest modifiedRequest = addUserInfoToHeaders(request, validationResult);
                         return chain.filter(exchange.mutate().request(modifiedRequest).build());
                     })
@@ -71,14 +103,6 @@ public class JwtValidationFilter extends AbstractGatewayFilterFactory<JwtValidat
         };
     }
 
-    private boolean isPublicEndpoint(String path) {
-        return path.startsWith("/public") ||
-               path.startsWith("/auth") ||
-               path.startsWith("/actuator") ||
-               path.startsWith("/oauth2") ||
-               path.startsWith("/.well-known");
-    }
-
     private String extractToken(ServerHttpRequest request) {
         String bearerToken = request.getHeaders().getFirst("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -87,7 +111,10 @@ public class JwtValidationFilter extends AbstractGatewayFilterFactory<JwtValidat
         return null;
     }
 
-    private ServerHttpRequest addUserInfoToHeaders(ServerHttpRequest request, JwtValidationService.JWTValidationResult validationResult) {
+    /**
+     * The request with the X-User-* headers backends read. Also used by the batch endpoint for its parts.
+     */
+    public ServerHttpRequest addUserInfoToHeaders(ServerHttpRequest request, JwtValidationService.JWTValidationResult validationResult) {
         String email = "";
         String username = "";
         try { email = validationResult.getClaimsSet().getStringClaim("email"); } catch (ParseException ignored) {}
@@ -104,34 +131,7 @@ public class JwtValidationFilter extends AbstractGatewayFilterFactory<JwtValidat
     }
 
     private Mono<Void> createErrorResponse(ServerHttpResponse response, String message, HttpStatus status) {
-        response.setStatusCode(status);
-        response.getHeaders().add("Content-Type", "application/json");
-
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("error", status.getReasonPhrase());
-        errorResponse.put("message", message);
-        errorResponse.put("status", status.value());
-        errorResponse.put("timestamp", LocalDateTime.now());
-
-        String jsonResponse = convertToJson(errorResponse);
-        return response.writeWith(Mono.just(response.bufferFactory().wrap(jsonResponse.getBytes())));
-    }
-
-    private String convertToJson(Map<String, Object> data) {
-        StringBuilder json = new StringBuilder("{");
-        boolean first = true;
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            if (!first) json.append(",");
-            json.append("\"").append(entry.getKey()).append("\":");
-            if (entry.getValue() instanceof String) {
-                json.append("\"").append(entry.getValue()).append("\"");
-            } else {
-                json.append(entry.getValue());
-            }
-            first = false;
-        }
-        json.append("}");
-        return json.toString();
+        return errorResponseCatalogue.write(response, status, errorResponseCatalogue.forStatus(status, message));
     }
 
     public static class Config {}
@@ -0,0 +1,39 @@
+package com.api.apigateway.filter;
+
+import com.api.apigateway.service.JwtValidationService;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Identifies a GET by route, verified user, URI and the headers that change the representation,
+ * so responses shared under the key never leak between users.
+ */
+final class PrincipalRequestKey {
+
+    private PrincipalRequestKey() {
+    }
+
+    /**
+     * The key for this exchange, or null when the request has no verified user to key a private response on.
+     */
+    static String of(ServerWebExchange exchange) {
+        JwtValidationService.JWTValidationResult validationResult =
+                exchange.getAttribute(JwtValidationFilter.VALIDATION_RESULT_ATTRIBUTE);
+        if (validationResult == null || !validationResult.isValid()) {
+            return null;
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        return (route != null ? route.getId() : "")
+                + '|' + validationResult.getClaimsSet().getSubject()
+                + '|' + request.getURI().getRawPath()
+                + '?' + request.getURI().getRawQuery()
+                // The body is relayed as is, so a gzip response must only go to clients that accept gzip
+                + '|' + headers.getFirst(HttpHeaders.ACCEPT)
+                + '|' + headers.getFirst(HttpHeaders.ACCEPT_ENCODING);
+    }
+}
@@ -0,0 +1,114 @@
+package com.api.apigateway.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Paths that need no token, compiled once into a character trie so a request path is decided in a single pass.
+ * A prefix matches whole path segments only: {@code /public} matches {@code /public} and {@code /public/docs}
+ * but not {@code /publicity}. Used by both {@link JwtValidationFilter} and the security chain's permitAll rule.
+ */
+@Component
+public class PublicPathMatcher implements ServerWebExchangeMatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublicPathMatcher.class);
+
+    private final Node root = new Node();
+
+    private final List<String> prefixes;
+
+    public PublicPathMatcher(@Value("${gateway.public-paths:/public,/auth,/oauth2,/.well-known,/fallback,/actuator/health,/actuator/info}") String[] prefixes) {
+        this.prefixes = Arrays.stream(prefixes)
+                .map(String::trim)
+                .filter(prefix -> !prefix.isEmpty())
+                .map(PublicPathMatcher::normalize)
+                .toList();
+        for (String prefix : this.prefixes) {
+            // "/" makes every path public, it is the root itself rather than a child
+            String path = prefix.equals("/") ? "" : prefix;
+            Node node = root;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.childOrCreate(path.charAt(i));
+            }
+            node.terminal = true;
+        }
+        logger.info("Public paths: {}", this.prefixes);
+    }
+
+    public List<String> getPrefixes() {
+        return prefixes;
+    }
+
+    public boolean isPublic(String path) {
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '/' && node.terminal) {
+                return true;
+            }
+            node = node.child(c);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.terminal;
+    }
+
+    @Override
+    public Mono<MatchResult> matches(ServerWebExchange exchange) {
+        return isPublic(exchange.getRequest().getPath().pathWithinApplication().value())
+                ? MatchResult.match()
+                : MatchResult.notMatch();
+    }
+
+    private static String normalize(String prefix) {
+        String normalized = prefix.endsWith("/**") ? prefix.substring(0, prefix.length() - 3) : prefix;
+        while (normalized.length() > 1 && normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        if (!normalized.startsWith("/")) {
+            throw new IllegalArgumentException("Public path must start with '/': " + prefix);
+        }
+        return normalized;
+    }
+
+    private static final class Node {
+
+        private char[] keys = new char[0];
+
+        private Node[] children = new Node[0];
+
+        private boolean terminal;
+
+        private Node child(char c) {
+            char[] k = keys;
+            for (int i = 0; i < k.length; i++) {
+                if (k[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node childOrCreate(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            Node created = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = created;
+            return created;
+        }
+    }
+}
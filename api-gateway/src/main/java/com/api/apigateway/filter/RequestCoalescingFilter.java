@@ -0,0 +1,233 @@
+package com.api.apigateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collapses identical concurrent GETs from the same user into one upstream call.
+ * <p>
+ * The first request for a key goes upstream as usual and its response streams to its client as it arrives.
+ * If requests for the same key arrived while it was in flight, a copy of the body is kept on the side and
+ * handed to them once complete. Nothing is kept once the call finishes, so this only removes duplicates, it
+ * never serves an old response. Followers whose leader fails to produce a shareable response (an error, a
+ * streamed or oversized body), or takes longer than the route's max wait, go upstream themselves.
+ * <p>
+ * Like {@link ResponseCacheFilter} the filter runs just ahead of {@code NettyWriteResponseFilter}, so before the
+ * route's other filters. The leader is charged to {@code AdaptiveConcurrencyFilter} and {@code RequestRateLimiter}
+ * as any request is; followers answered from its response are not, since they add no load upstream. A follower
+ * that falls back continues down the chain and is charged then.
+ */
+@Component
+public class RequestCoalescingFilter extends AbstractGatewayFilterFactory<RequestCoalescingFilter.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescingFilter.class);
+
+    public static final String COALESCED_HEADER = "X-Gateway-Coalesced";
+
+    private final Map<String, InFlightCall> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, RouteCounters> counters = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    private final long maxBodyBytes;
+
+    public RequestCoalescingFilter(MeterRegistry meterRegistry,
+                                   @Value("${gateway.coalescing.max-body-bytes:1048576}") long maxBodyBytes) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.maxBodyBytes = maxBodyBytes;
+
+        Gauge.builder("gateway.coalescing.in-flight", inFlight, Map::size)
+                .description("Upstream GETs that concurrent duplicates are waiting on")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("maxWait");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Must wrap the response before NettyWriteResponseFilter captures it, like ModifyResponseBody does
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            String key = exchange.getRequest().getMethod() == HttpMethod.GET ? PrincipalRequestKey.of(exchange) : null;
+            if (key == null) {
+                return chain.filter(exchange);
+            }
+
+            RouteCounters routeCounters = countersFor(exchange);
+            InFlightCall call = new InFlightCall();
+            // Join the call in flight, unless its leader has already started answering with no one to share with
+            InFlightCall leader = inFlight.merge(key, call, (existing, created) -> existing.join() ? existing : created);
+            if (leader != call) {
+                return leader.sink.asMono()
+                        .timeout(config.getMaxWait(), Mono.empty())
+                        .flatMap(shared -> {
+                            routeCounters.coalesced.increment();
+                            exchange.getResponse().getHeaders().set(COALESCED_HEADER, "true");
+                            return shared.writeTo(exchange.getResponse());
+                        })
+                        .switchIfEmpty(Mono.defer(() -> {
+                            logger.debug("No shared response for {}, calling upstream", exchange.getRequest().getPath());
+                            routeCounters.fallbacks.increment();
+                            return chain.filter(exchange);
+                        }));
+            }
+
+            routeCounters.leaders.increment();
+            ServerHttpResponse response = new SharingResponse(exchange.getResponse(), key, call);
+            return chain.filter(exchange.mutate().response(response).build())
+                    // Errors, cancellation and unshareable bodies end here without a captured response
+                    .doFinally(signal -> release(key, call));
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private void release(String key, InFlightCall call) {
+        inFlight.remove(key, call);
+        call.sink.tryEmitEmpty();
+    }
+
+    private RouteCounters countersFor(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return counters.computeIfAbsent(route != null ? route.getId() : "unknown",
+                routeId -> new RouteCounters(meterRegistry, routeId));
+    }
+
+    /**
+     * One leader's upstream call and the followers waiting for its response.
+     */
+    private static final class InFlightCall {
+
+        private final Sinks.One<CapturedResponse> sink = Sinks.one();
+
+        // Followers joined so far, or -1 once the leader found none and stopped taking more
+        private final AtomicInteger followers = new AtomicInteger();
+
+        private boolean join() {
+            int count;
+            do {
+                count = followers.get();
+                if (count < 0) {
+                    return false;
+                }
+            } while (!followers.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        private boolean closeIfAlone() {
+            return followers.compareAndSet(0, -1);
+        }
+    }
+
+    /**
+     * Streams the leader's response through, keeping a copy for the followers when there are any.
+     */
+    private final class SharingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+
+        private final InFlightCall call;
+
+        private SharingResponse(ServerHttpResponse delegate, String key, InFlightCall call) {
+            super(delegate);
+            this.key = key;
+            this.call = call;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            long contentLength = getHeaders().getContentLength();
+            if (status == null || contentLength > maxBodyBytes || call.closeIfAlone()) {
+                release(key, call);
+                return super.writeWith(body);
+            }
+
+            // The body streams through as it arrives; the copy is dropped, and followers sent upstream,
+            // as soon as it outgrows maxBodyBytes
+            BodyCopy copy = new BodyCopy(maxBodyBytes);
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(buffer -> {
+                        if (!copy.append(buffer)) {
+                            release(key, call);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        byte[] bytes = copy.toByteArray();
+                        if (bytes != null) {
+                            // Stop new followers from joining a call that has already answered
+                            inFlight.remove(key, call);
+                            call.sink.tryEmitValue(new CapturedResponse(status, getHeaders(), bytes));
+                        }
+                    }));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // Streaming media types are flushed as they go and never shared
+            release(key, call);
+            return super.writeAndFlushWith(body);
+        }
+    }
+
+    private static final class RouteCounters {
+
+        private final Counter leaders;
+
+        private final Counter coalesced;
+
+        private final Counter fallbacks;
+
+        private RouteCounters(MeterRegistry meterRegistry, String routeId) {
+            this.leaders = counter(meterRegistry, routeId, "leader");
+            this.coalesced = counter(meterRegistry, routeId, "coalesced");
+            this.fallbacks = counter(meterRegistry, routeId, "fallback");
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String routeId, String result) {
+            return Counter.builder("gateway.coalescing.requests")
+                    .description("GETs by whether they called upstream or shared an in-flight response")
+                    .tag("route", routeId)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+
+    public static class Config {
+
+        // How long a duplicate waits for the in-flight response before calling upstream itself
+        private Duration maxWait = Duration.ofSeconds(10);
+
+        public Duration getMaxWait() { return maxWait; }
+        public void setMaxWait(Duration maxWait) { this.maxWait = maxWait; }
+    }
+}
@@ -0,0 +1,216 @@
+package com.api.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Per-user cache of successful GET responses for routes whose backend sits behind a circuit breaker.
+ * <p>
+ * While the route's breaker is open, or the backend fails and the circuit breaker falls back, the last good
+ * response is served marked as stale instead of the generic 503. With a fresh TTL, repeated GETs within it
+ * are answered from the cache without reaching the backend at all. Entries are keyed by route, user and URI,
+ * so one user's response is never served to another, and the cache is bounded by total body size.
+ * <p>
+ * The filter runs just ahead of {@code NettyWriteResponseFilter}, whatever its place in the route's filter list,
+ * because the response has to be wrapped before that filter takes hold of it. That puts it after the security
+ * chain, which supplies the verified user the key needs, but before every other route filter. Cache hits are
+ * therefore answered without being charged to {@code AdaptiveConcurrencyFilter} or {@code RequestRateLimiter}:
+ * those limits guard the backend, and a hit never reaches it. Only misses are charged.
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    public static final String CACHE_HEADER = "X-Gateway-Cache";
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final Cache<String, CapturedResponse> cache;
+
+    private final long maxEntryBytes;
+
+    private final Counter freshHits;
+
+    private final Counter staleHits;
+
+    private final Counter misses;
+
+    public ResponseCacheFilter(CircuitBreakerRegistry circuitBreakerRegistry,
+                               MeterRegistry meterRegistry,
+                               @Value("${gateway.response-cache.max-bytes:67108864}") long maxBytes,
+                               @Value("${gateway.response-cache.max-entry-bytes:262144}") long maxEntryBytes,
+                               @Value("${gateway.response-cache.max-stale:1h}") Duration maxStale) {
+        super(Config.class);
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CapturedResponse response) -> key.length() + response.getBody().length)
+                .expireAfterWrite(maxStale)
+                .build();
+
+        this.freshHits = Counter.builder("gateway.response-cache.requests").tag("result", "fresh").register(meterRegistry);
+        this.staleHits = Counter.builder("gateway.response-cache.requests").tag("result", "stale").register(meterRegistry);
+        this.misses = Counter.builder("gateway.response-cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("gateway.response-cache.entries", cache, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("circuitBreaker", "freshTtl", "staleTtl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Must wrap the response before NettyWriteResponseFilter captures it, like ModifyResponseBody does
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String key = PrincipalRequestKey.of(exchange);
+            if (request.getMethod() != HttpMethod.GET || key == null) {
+                return chain.filter(exchange);
+            }
+
+            CapturedResponse cached = cache.getIfPresent(key);
+            if (cached != null) {
+                Duration age = cached.age();
+                if (age.compareTo(config.getFreshTtl()) < 0) {
+                    freshHits.increment();
+                    return serve(exchange.getResponse(), cached, false);
+                }
+                if (age.compareTo(config.getStaleTtl()) < 0 && isOpen(config)) {
+                    // No point asking a backend the breaker has given up on
+                    logger.debug("Circuit breaker {} open, serving stale response for {}", config.getCircuitBreaker(), request.getPath());
+                    staleHits.increment();
+                    return serve(exchange.getResponse(), cached, true);
+                }
+            }
+
+            misses.increment();
+            CapturedResponse stale = cached != null && cached.age().compareTo(config.getStaleTtl()) < 0 ? cached : null;
+            ServerHttpResponse response = new CachingResponse(exchange.getResponse(), key, stale);
+            return chain.filter(exchange.mutate().response(response).build());
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private boolean isOpen(Config config) {
+        if (config.getCircuitBreaker() == null) {
+            return false;
+        }
+        CircuitBreaker.State state = circuitBreakerRegistry.circuitBreaker(config.getCircuitBreaker()).getState();
+        return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    private static Mono<Void> serve(ServerHttpResponse response, CapturedResponse cached, boolean stale) {
+        response.getHeaders().set(HttpHeaders.AGE, String.valueOf(cached.age().toSeconds()));
+        if (stale) {
+            response.getHeaders().set(CACHE_HEADER, "STALE");
+            response.getHeaders().set(HttpHeaders.WARNING, "110 - \"Response is Stale\"");
+        } else {
+            response.getHeaders().set(CACHE_HEADER, "HIT");
+        }
+        return cached.writeTo(response);
+    }
+
+    private static boolean isCacheable(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null || !cacheControl.contains("no-store");
+    }
+
+    /**
+     * Keeps a copy of a 200 body on its way out, or swaps a fallback 5xx for the stale copy.
+     */
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+
+        private final CapturedResponse stale;
+
+        private CachingResponse(ServerHttpResponse delegate, String key, CapturedResponse stale) {
+            super(delegate);
+            this.key = key;
+            this.stale = stale;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            if (status != null && status.is5xxServerError() && stale != null) {
+                logger.debug("Backend failed with {}, serving stale response", status);
+                staleHits.increment();
+                return Flux.from(body)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.defer(() -> serve(getDelegate(), stale, true)));
+            }
+            if (status == null || status.value() != HttpStatus.OK.value() || !isCacheable(getHeaders())) {
+                return super.writeWith(body);
+            }
+
+            getHeaders().set(CACHE_HEADER, "MISS");
+            if (getHeaders().getContentLength() > maxEntryBytes) {
+                return super.writeWith(body);
+            }
+
+            // The body streams through as it arrives; a copy is kept on the side until it outgrows maxEntryBytes
+            BodyCopy copy = new BodyCopy(maxEntryBytes);
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(copy::append)
+                    .doOnComplete(() -> {
+                        byte[] bytes = copy.toByteArray();
+                        if (bytes != null) {
+                            // The MISS marker belongs to this response only, a hit sets its own
+                            HttpHeaders headers = new HttpHeaders();
+                            headers.putAll(getHeaders());
+                            headers.remove(CACHE_HEADER);
+                            cache.put(key, new CapturedResponse(status, headers, bytes));
+                        }
+                    }));
+        }
+    }
+
+    public static class Config {
+
+        // Name of the resilience4j circuit breaker guarding the route's backend
+        private String circuitBreaker;
+
+        // Zero disables fresh hits, every request then reaches the backend while it is up
+        private Duration freshTtl = Duration.ZERO;
+
+        private Duration staleTtl = Duration.ofMinutes(10);
+
+        public String getCircuitBreaker() { return circuitBreaker; }
+        public void setCircuitBreaker(String circuitBreaker) { this.circuitBreaker = circuitBreaker; }
+        public Duration getFreshTtl() { return freshTtl; }
+        public void setFreshTtl(Duration freshTtl) { this.freshTtl = freshTtl; }
+        public Duration getStaleTtl() { return staleTtl; }
+        public void setStaleTtl(Duration staleTtl) { this.staleTtl = staleTtl; }
+    }
+}
@@ -0,0 +1,95 @@
+package com.api.apigateway.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power of two choices over the instances whose circuit breaker lets calls through: two instances are
+ * drawn at random and the one with the lower {@link UpstreamInstanceStats.InstanceStats#cost() cost} wins.
+ * <p>
+ * Random pairs keep a slow or busy instance from being skipped by everyone at once the way a strict
+ * least-loaded pick would pile onto the current best. If every instance is ejected, all of them are
+ * candidates again rather than failing the request outright.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeakEwmaLoadBalancer.class);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> instanceListSupplier;
+
+    private final String serviceId;
+
+    private final UpstreamInstanceStats instanceStats;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> instanceListSupplier,
+                                String serviceId,
+                                UpstreamInstanceStats instanceStats) {
+        this.instanceListSupplier = instanceListSupplier;
+        this.serviceId = serviceId;
+        this.instanceStats = instanceStats;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = instanceListSupplier.getIfAvailable();
+        if (supplier == null) {
+            return Mono.just(new EmptyResponse());
+        }
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            logger.warn("No instances available for {}", serviceId);
+            return new EmptyResponse();
+        }
+
+        List<ServiceInstance> permitted = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (instanceStats.of(instance).tryAcquirePermission()) {
+                permitted.add(instance);
+            }
+        }
+        if (permitted.isEmpty()) {
+            logger.debug("Every instance of {} is ejected, choosing among all of them", serviceId);
+            return new DefaultResponse(pick(instances));
+        }
+
+        ServiceInstance chosen = pick(permitted);
+        for (ServiceInstance instance : permitted) {
+            if (instance != chosen) {
+                instanceStats.of(instance).releasePermission();
+            }
+        }
+        return new DefaultResponse(chosen);
+    }
+
+    private ServiceInstance pick(List<ServiceInstance> candidates) {
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return instanceStats.of(a).cost() <= instanceStats.of(b).cost() ? a : b;
+    }
+}
@@ -0,0 +1,192 @@
+package com.api.apigateway.loadbalancer;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load and health of every upstream instance the gateway has called, shared by the load balancers of all services.
+ * <p>
+ * Latency is a peak EWMA: a slower response raises it at once, faster ones pull it down over the decay time.
+ * Each instance also has its own resilience4j circuit breaker; while it is open the instance is ejected from
+ * selection, and after the breaker's wait duration it is let back in for trial calls.
+ */
+@Component
+public class UpstreamInstanceStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamInstanceStats.class);
+
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final MeterRegistry meterRegistry;
+
+    private final long decayNanos;
+
+    private final String circuitBreakerConfig;
+
+    public UpstreamInstanceStats(CircuitBreakerRegistry circuitBreakerRegistry,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${gateway.load-balancer.decay-time:10s}") Duration decayTime,
+                                 @Value("${gateway.load-balancer.instance-circuit-breaker-config:upstreamInstance}") String circuitBreakerConfig) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.meterRegistry = meterRegistry;
+        this.decayNanos = decayTime.toNanos();
+        this.circuitBreakerConfig = circuitBreakerConfig;
+    }
+
+    /**
+     * Stats for an instance, created on first use.
+     */
+    public InstanceStats of(ServiceInstance instance) {
+        String key = instance.getServiceId() + "|" + instance.getHost() + ":" + instance.getPort();
+        InstanceStats existing = stats.get(key);
+        return existing != null ? existing : stats.computeIfAbsent(key, k -> new InstanceStats(instance));
+    }
+
+    /**
+     * Record the start of a call to the instance. The returned call must be finished exactly once.
+     */
+    public Call start(ServiceInstance instance) {
+        InstanceStats instanceStats = of(instance);
+        instanceStats.inFlight.incrementAndGet();
+        return new Call(instanceStats, System.nanoTime());
+    }
+
+    private CircuitBreaker circuitBreaker(String name) {
+        if (circuitBreakerRegistry.getConfiguration(circuitBreakerConfig).isPresent()) {
+            return circuitBreakerRegistry.circuitBreaker(name, circuitBreakerConfig);
+        }
+        return circuitBreakerRegistry.circuitBreaker(name);
+    }
+
+    public final class InstanceStats {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private final CircuitBreaker circuitBreaker;
+
+        private double latencyNanos;
+
+        private long lastUpdate = System.nanoTime();
+
+        private InstanceStats(ServiceInstance instance) {
+            String address = instance.getHost() + ":" + instance.getPort();
+            this.circuitBreaker = circuitBreaker(instance.getServiceId() + "@" + address);
+            this.circuitBreaker.getEventPublisher().onStateTransition(event ->
+                    logger.warn("Upstream {} of {}: {}", address, instance.getServiceId(), event.getStateTransition()));
+
+            Tags tags = Tags.of("service", instance.getServiceId(), "instance", address);
+            Gauge.builder("gateway.loadbalancer.in-flight", inFlight, AtomicInteger::get)
+                    .tags(tags)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.loadbalancer.latency", this, s -> s.latencyNanos() / 1_000_000.0)
+                    .description("Peak EWMA of upstream response time")
+                    .baseUnit("milliseconds")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+
+        public int inFlight() {
+            return inFlight.get();
+        }
+
+        public synchronized double latencyNanos() {
+            return latencyNanos;
+        }
+
+        /**
+         * Expected cost of sending one more request: latency scaled by the requests already waiting on the instance.
+         */
+        public double cost() {
+            return latencyNanos() * (inFlight() + 1);
+        }
+
+        /**
+         * False while the instance's breaker is open. A true answer takes a permission that must be
+         * handed back with {@link #releasePermission()} if the instance is then not called.
+         */
+        public boolean tryAcquirePermission() {
+            return circuitBreaker.tryAcquirePermission();
+        }
+
+        public void releasePermission() {
+            circuitBreaker.releasePermission();
+        }
+
+        private synchronized void recordLatency(long nanos) {
+            long now = System.nanoTime();
+            if (nanos > latencyNanos) {
+                latencyNanos = nanos;
+            } else {
+                double weight = Math.exp(-(double) (now - lastUpdate) / decayNanos);
+                latencyNanos = latencyNanos * weight + nanos * (1 - weight);
+            }
+            lastUpdate = now;
+        }
+    }
+
+    public static final class Call {
+
+        private final InstanceStats instanceStats;
+
+        private final long startedAt;
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Call(InstanceStats instanceStats, long startedAt) {
+            this.instanceStats = instanceStats;
+            this.startedAt = startedAt;
+        }
+
+        /**
+         * Record the outcome. Later calls are ignored, so it is safe from both error and finally hooks.
+         */
+        public void finish(boolean success, Throwable error) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            long duration = System.nanoTime() - startedAt;
+            instanceStats.inFlight.decrementAndGet();
+            if (success) {
+                instanceStats.recordLatency(duration);
+                instanceStats.circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+            } else {
+                // A refused connection fails fast, it must not make the instance look cheaper than its peers
+                instanceStats.recordLatency(Math.max(duration, (long) instanceStats.latencyNanos()));
+                instanceStats.circuitBreaker.onError(duration, TimeUnit.NANOSECONDS,
+                        error != null ? error : new IllegalStateException("Upstream call failed"));
+            }
+        }
+
+        /**
+         * End a call that was abandoned for reasons that say nothing about the instance, such as a client
+         * disconnecting: frees its in-flight slot and breaker permission without recording an outcome.
+         */
+        public void ignore() {
+            if (finished.compareAndSet(false, true)) {
+                instanceStats.inFlight.decrementAndGet();
+                instanceStats.circuitBreaker.releasePermission();
+            }
+        }
+
+        public Duration elapsed() {
+            return Duration.ofNanos(System.nanoTime() - startedAt);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.api.apigateway.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Feeds the outcome of every load-balanced route call into {@link UpstreamInstanceStats}.
+ * <p>
+ * Runs right after the load balancer filter has picked an instance. The load balancer's own lifecycle
+ * callbacks are not used because they never fire when the call is cancelled, which is exactly what a
+ * circuit breaker timeout does, and the instance would then look busy forever.
+ * <p>
+ * Errors and 5xx responses count against the instance. A cancelled call only does when it ran for about the
+ * route's time limit, which is the circuit breaker timing it out; anything cancelled sooner (a client disconnecting, a
+ * Retry or CircuitBreaker filter giving up for its own reasons) is let go without an outcome.
+ */
+@Component
+public class UpstreamTrackingFilter implements GlobalFilter, Ordered {
+
+    private final UpstreamInstanceStats instanceStats;
+
+    private final Duration callTimeout;
+
+    public UpstreamTrackingFilter(UpstreamInstanceStats instanceStats,
+                                  @Value("${gateway.load-balancer.call-timeout:900ms}") Duration callTimeout) {
+        this.instanceStats = instanceStats;
+        this.callTimeout = callTimeout;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> response = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (response == null || !response.hasServer()) {
+            return chain.filter(exchange);
+        }
+
+        UpstreamInstanceStats.Call call = instanceStats.start(response.getServer());
+        return chain.filter(exchange)
+                .doOnError(e -> call.finish(false, e))
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        if (call.elapsed().compareTo(callTimeout) >= 0) {
+                            call.finish(false, new TimeoutException("Upstream call timed out after " + callTimeout.toMillis() + "ms"));
+                        } else {
+                            call.ignore();
+                        }
+                        return;
+                    }
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    call.finish(status == null || !status.is5xxServerError(), null);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
@@ -0,0 +1,136 @@
+package com.api.apigateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for one route that follows the upstream's latency, in the style of the gradient (Vegas-like)
+ * limiters: no queueing shows up as latency close to the long-term baseline and lets the limit grow, while latency
+ * rising above the baseline means requests are queueing upstream and shrinks it.
+ * <p>
+ * On every sample the limit moves towards {@code limit * gradient + queueSize}, where the gradient is
+ * {@code rttTolerance * longRtt / sampleRtt} clamped to [0.5, 1]. The long RTT is an exponential average over
+ * {@code longWindow} samples. Failed calls (5xx, errors, timeouts) carry no useful latency and instead cut the
+ * limit by the backoff ratio. The limit only grows while at least half of it is in use, so a quiet period
+ * does not leave behind a limit the upstream never proved it can take.
+ */
+public class GradientConcurrencyLimit {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double rttTolerance;
+
+    private final double smoothing;
+
+    private final int queueSize;
+
+    private final double backoffRatio;
+
+    private final int longWindow;
+
+    private volatile double limit;
+
+    private double longRttNanos;
+
+    private double lastRttNanos;
+
+    private int samples;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance,
+                                    double smoothing, int longWindow, int queueSize, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.longWindow = Math.max(longWindow, 1);
+        this.queueSize = queueSize;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Take a slot if fewer calls than the limit are in flight. A true answer must be followed by exactly one
+     * {@link #onSuccess(long)}, {@link #onDropped()} or {@link #onIgnored()}.
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * The call completed normally after the given time.
+     */
+    public void onSuccess(long rttNanos) {
+        int inFlightAtStart = inFlight.getAndDecrement();
+        update(rttNanos, inFlightAtStart);
+    }
+
+    /**
+     * The call failed or timed out, which is taken as a sign of overload.
+     */
+    public synchronized void onDropped() {
+        inFlight.decrementAndGet();
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    /**
+     * The call ended without telling anything about the upstream, for example because the client went away.
+     */
+    public void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized double longRttNanos() {
+        return longRttNanos;
+    }
+
+    public synchronized double lastRttNanos() {
+        return lastRttNanos;
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtStart) {
+        lastRttNanos = rttNanos;
+        // Plain average until the window has a few samples, then an exponential one
+        int warmup = Math.min(longWindow, 10);
+        if (samples < warmup) {
+            samples++;
+            longRttNanos += (rttNanos - longRttNanos) / samples;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * 2.0 / (longWindow + 1);
+        }
+
+        // A baseline far above the current latency is stale (the upstream got faster), let it catch up
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+        double target = limit * gradient + queueSize;
+        double next = limit * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
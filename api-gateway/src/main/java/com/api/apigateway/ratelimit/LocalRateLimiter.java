@@ -0,0 +1,315 @@
+package com.api.apigateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.constraints.Min;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket rate limiter that keeps its buckets in gateway memory, so admitting a request costs no Redis round trip.
+ * <p>
+ * Each key's bucket is a single theoretical arrival time updated by CAS (GCRA), which admits exactly what a token
+ * bucket refilled at the replenish rate up to the burst capacity would. Buckets live in a size-bounded Caffeine cache
+ * and are dropped once idle; a dropped bucket starts full again, as it would have refilled by then anyway.
+ * <p>
+ * Keys from {@link PrincipalKeyResolver} carry the caller's {@link QuotaTiers quota tier}, which scales the route's
+ * replenish rate and burst capacity for that caller. The remaining capacity and tier are returned as response headers.
+ * <p>
+ * With sync enabled each gateway periodically adds its consumption to a per-window Redis counter and charges its
+ * buckets with what the other gateways consumed, which approximates a limit shared by all instances.
+ */
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+    public static final String TIER_HEADER = "X-RateLimit-Tier";
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRateLimiter.class);
+
+    private static final String SYNC_KEY_PREFIX = "rate-limiter:";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Cache<String, Bucket> buckets;
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+
+    private final QuotaTiers quotaTiers;
+
+    private final boolean syncEnabled;
+
+    private final Duration syncInterval;
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    private Config defaultConfig;
+
+    private boolean includeHeaders = true;
+
+    public LocalRateLimiter(ConfigurationService configurationService,
+                            ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+                            QuotaTiers quotaTiers,
+                            MeterRegistry meterRegistry,
+                            long maxKeys,
+                            Duration idleTimeout,
+                            boolean syncEnabled,
+                            Duration syncInterval) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.quotaTiers = quotaTiers;
+        this.syncEnabled = syncEnabled;
+        this.syncInterval = syncInterval;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+
+        Gauge.builder("gateway.ratelimiter.local.keys", buckets, Cache::estimatedSize)
+                .description("Rate limit buckets held in gateway memory")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!syncEnabled) {
+            return;
+        }
+        logger.info("Local rate limiter syncing with Redis every {}", syncInterval);
+        subscriptions.add(Flux.interval(syncInterval)
+                .concatMap(tick -> sync()
+                        .onErrorResume(e -> {
+                            logger.warn("Rate limiter sync with Redis failed, limits are per instance until it recovers: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    public void setDefaultConfig(Config defaultConfig) {
+        this.defaultConfig = defaultConfig;
+    }
+
+    public void setIncludeHeaders(boolean includeHeaders) {
+        this.includeHeaders = includeHeaders;
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = loadConfiguration(routeId);
+        String tier = quotaTiers.tierOf(id);
+        Quota quota = new Quota(config, quotaTiers.multiplier(tier));
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(routeId + ":" + id, key -> new Bucket(routeId, tier, key, now));
+
+        boolean allowed = bucket.tryAcquire(quota, now);
+        long remaining = bucket.remaining(quota, now);
+        if (!allowed) {
+            logger.debug("Rate limit exceeded for route {} key {}", routeId, id);
+        }
+        return Mono.just(new Response(allowed, getHeaders(quota, tier, remaining)));
+    }
+
+    Config loadConfiguration(String routeId) {
+        Config routeConfig = getConfig().getOrDefault(routeId, defaultConfig);
+        if (routeConfig == null) {
+            routeConfig = getConfig().get(RouteDefinitionRouteLocator.DEFAULT_FILTERS);
+        }
+        if (routeConfig == null) {
+            throw new IllegalArgumentException("No Configuration found for route " + routeId + " or defaultFilters");
+        }
+        return routeConfig;
+    }
+
+    private Map<String, String> getHeaders(Quota quota, String tier, long remaining) {
+        Map<String, String> headers = new HashMap<>();
+        if (includeHeaders) {
+            headers.put(RedisRateLimiter.REMAINING_HEADER, String.valueOf(remaining));
+            headers.put(RedisRateLimiter.REPLENISH_RATE_HEADER, String.valueOf(quota.replenishRate()));
+            headers.put(RedisRateLimiter.BURST_CAPACITY_HEADER, String.valueOf(quota.burstCapacity()));
+            headers.put(RedisRateLimiter.REQUESTED_TOKENS_HEADER, String.valueOf(quota.requestedTokens()));
+            headers.put(TIER_HEADER, tier);
+        }
+        return headers;
+    }
+
+    private Mono<Void> sync() {
+        long window = System.currentTimeMillis() / syncInterval.toMillis();
+        return Flux.fromIterable(buckets.asMap().values())
+                .filter(bucket -> bucket.unsynced.get() > 0)
+                .flatMap(bucket -> syncBucket(bucket, window), 32)
+                .then();
+    }
+
+    private Mono<Void> syncBucket(Bucket bucket, long window) {
+        if (bucket.window != window) {
+            bucket.window = window;
+            bucket.ownInWindow = 0;
+            bucket.remoteCharged = 0;
+        }
+        long consumed = bucket.unsynced.getAndSet(0);
+        bucket.ownInWindow += consumed;
+
+        String key = SYNC_KEY_PREFIX + bucket.key + ":" + window;
+        return reactiveRedisTemplate.opsForValue().increment(key, consumed)
+                .flatMap(total -> reactiveRedisTemplate.expire(key, syncInterval.multipliedBy(2)).thenReturn(total))
+                .doOnNext(total -> {
+                    // Whatever the window holds beyond our own share was consumed through other gateways
+                    long remote = total - bucket.ownInWindow;
+                    long charge = remote - bucket.remoteCharged;
+                    if (charge > 0) {
+                        bucket.remoteCharged = remote;
+                        Quota quota = new Quota(loadConfiguration(bucket.routeId), quotaTiers.multiplier(bucket.tier));
+                        bucket.charge(quota, charge, System.nanoTime());
+                    }
+                })
+                .then();
+    }
+
+    private static final class Bucket {
+
+        private final String routeId;
+
+        private final String tier;
+
+        private final String key;
+
+        // Theoretical arrival time in System.nanoTime() terms, the bucket is full once it lies in the past
+        private final AtomicLong tat;
+
+        private final AtomicLong unsynced = new AtomicLong();
+
+        // Only touched by the sync loop
+        private long window = -1;
+
+        private long ownInWindow;
+
+        private long remoteCharged;
+
+        private Bucket(String routeId, String tier, String key, long now) {
+            this.routeId = routeId;
+            this.tier = tier;
+            this.key = key;
+            this.tat = new AtomicLong(now);
+        }
+
+        private boolean tryAcquire(Quota quota, long now) {
+            long interval = quota.emissionInterval();
+            long increment = interval * quota.requestedTokens();
+            long tolerance = interval * quota.burstCapacity();
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + increment;
+                if (next - now > tolerance) {
+                    return false;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    unsynced.addAndGet(quota.requestedTokens());
+                    return true;
+                }
+            }
+        }
+
+        private long remaining(Quota quota, long now) {
+            long interval = quota.emissionInterval();
+            long used = Math.max(0, tat.get() - now);
+            return Math.max(0, (interval * quota.burstCapacity() - used) / interval);
+        }
+
+        /**
+         * Take tokens consumed elsewhere out of the bucket, at most down to empty.
+         */
+        private void charge(Quota quota, long tokens, long now) {
+            long interval = quota.emissionInterval();
+            long empty = now + interval * quota.burstCapacity();
+            tat.updateAndGet(current -> Math.min(Math.max(current, now) + interval * tokens, Math.max(current, empty)));
+        }
+    }
+
+    /**
+     * A route's configuration scaled by the caller's tier multiplier.
+     */
+    private record Quota(long replenishRate, long burstCapacity, int requestedTokens) {
+
+        private Quota(Config config, double multiplier) {
+            this(Math.max(1, Math.round(config.getReplenishRate() * multiplier)),
+                    Math.round(config.getBurstCapacity() * multiplier),
+                    config.getRequestedTokens());
+        }
+
+        private long emissionInterval() {
+            return NANOS_PER_SECOND / replenishRate;
+        }
+    }
+
+    @Validated
+    public static class Config {
+
+        @Min(1)
+        private int replenishRate;
+
+        @Min(0)
+        private long burstCapacity = 1;
+
+        @Min(1)
+        private int requestedTokens = 1;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public long getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(long burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Config{replenishRate=" + replenishRate + ", burstCapacity=" + burstCapacity
+                    + ", requestedTokens=" + requestedTokens + "}";
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.api.apigateway.ratelimit;
+
+import com.api.apigateway.filter.JwtValidationFilter;
+import com.api.apigateway.service.JwtValidationService;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+
+/**
+ * Rate limits per caller instead of one shared key. Routes behind {@link JwtValidationFilter} are keyed on the
+ * token subject it validated (the X-User-ID it forwards) in the caller's quota tier, reusing the filter's result
+ * rather than parsing the token again. Other routes fall back to the authenticated principal, then the client address.
+ */
+@Component
+public class PrincipalKeyResolver implements KeyResolver {
+
+    private final QuotaTiers quotaTiers;
+
+    public PrincipalKeyResolver(QuotaTiers quotaTiers) {
+        this.quotaTiers = quotaTiers;
+    }
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        JwtValidationService.JWTValidationResult validationResult =
+                exchange.getAttribute(JwtValidationFilter.VALIDATION_RESULT_ATTRIBUTE);
+        if (validationResult != null && validationResult.isValid()) {
+            String tier = quotaTiers.tierFor(validationResult.getAuthorities());
+            return Mono.just(quotaTiers.key(tier, validationResult.getClaimsSet().getSubject()));
+        }
+
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+                    return remoteAddress != null ? "ip:" + remoteAddress.getHostString() : "";
+                }))
+                .map(principal -> principal.isEmpty() ? principal : quotaTiers.key(QuotaTiers.DEFAULT_TIER, principal));
+    }
+}
@@ -0,0 +1,63 @@
+package com.api.apigateway.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate limit quota tiers keyed by authority. A tier's quota is the route's replenish rate and burst capacity
+ * multiplied by the tier's factor, callers without a configured authority get the route's quota as is.
+ * <p>
+ * The tier travels inside the rate limit key ({@code <tier>:<principal>}) because that is all the gateway
+ * hands a {@code RateLimiter}.
+ */
+@Component
+public class QuotaTiers {
+
+    public static final String DEFAULT_TIER = "default";
+
+    private static final Logger logger = LoggerFactory.getLogger(QuotaTiers.class);
+
+    // Insertion order is priority order, the first authority a caller holds picks the tier
+    private final Map<String, Double> multipliers = new LinkedHashMap<>();
+
+    public QuotaTiers(@Value("${gateway.rate-limiter.tiers:ROLE_ADMIN=5}") String[] tiers) {
+        for (String tier : tiers) {
+            String[] parts = tier.trim().split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Rate limit tier must look like AUTHORITY=multiplier: " + tier);
+            }
+            multipliers.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+        }
+        logger.info("Rate limit quota tiers: {}", multipliers);
+    }
+
+    public String tierFor(List<String> authorities) {
+        if (authorities != null) {
+            for (String tier : multipliers.keySet()) {
+                if (authorities.contains(tier)) {
+                    return tier;
+                }
+            }
+        }
+        return DEFAULT_TIER;
+    }
+
+    public String key(String tier, String principal) {
+        return tier + ":" + principal;
+    }
+
+    public String tierOf(String key) {
+        int separator = key.indexOf(':');
+        return separator > 0 ? key.substring(0, separator) : DEFAULT_TIER;
+    }
+
+    public double multiplier(String tier) {
+        return multipliers.getOrDefault(tier, 1.0);
+    }
+}
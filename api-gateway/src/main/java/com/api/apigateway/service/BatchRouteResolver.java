@@ -0,0 +1,162 @@
+package com.api.apigateway.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.filter.FilterDefinition;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps a batch part's gateway path to the backend URI its route would forward to.
+ * <p>
+ * Targets come from the {@code spring.cloud.gateway.routes} definitions themselves (Path predicate, URI,
+ * StripPrefix, CircuitBreaker name and RequestRateLimiter limiter), so the batch endpoint follows route changes
+ * without separate config.
+ * Only the routes listed in {@code gateway.batch.routes} can be batched.
+ */
+@Component
+public class BatchRouteResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRouteResolver.class);
+
+    // The form routes use to pick a limiter bean, e.g. rate-limiter: "#{@localRateLimiter}"
+    private static final Pattern BEAN_REFERENCE = Pattern.compile("#\\{@([\\w.-]+)}");
+
+    private final List<Target> targets = new ArrayList<>();
+
+    public BatchRouteResolver(GatewayProperties gatewayProperties,
+                              BeanFactory beanFactory,
+                              ObjectProvider<RateLimiter<?>> defaultRateLimiter,
+                              @Value("${gateway.batch.routes:user-service,admin-service}") Set<String> routeIds) {
+        for (RouteDefinition route : gatewayProperties.getRoutes()) {
+            if (!routeIds.contains(route.getId())) {
+                continue;
+            }
+            String scheme = route.getUri().getScheme();
+            if (!"http".equals(scheme) && !"https".equals(scheme) && !"lb".equals(scheme)) {
+                logger.warn("Route {} forwards to {}, batch parts only support http, https and lb routes", route.getId(), route.getUri());
+                continue;
+            }
+
+            int stripPrefix = 0;
+            String circuitBreaker = null;
+            RateLimiter<?> rateLimiter = null;
+            for (FilterDefinition filter : route.getFilters()) {
+                if ("StripPrefix".equals(filter.getName())) {
+                    stripPrefix = Integer.parseInt(firstArg(filter.getArgs().get("parts"), filter.getArgs().values()));
+                } else if ("CircuitBreaker".equals(filter.getName())) {
+                    circuitBreaker = firstArg(filter.getArgs().get("name"), filter.getArgs().values());
+                } else if ("RequestRateLimiter".equals(filter.getName())) {
+                    rateLimiter = rateLimiter(route.getId(), filter.getArgs().get("rate-limiter"), beanFactory, defaultRateLimiter);
+                }
+            }
+            for (PredicateDefinition predicate : route.getPredicates()) {
+                if ("Path".equals(predicate.getName())) {
+                    for (String pattern : predicate.getArgs().values()) {
+                        for (String path : pattern.split(",")) {
+                            targets.add(new Target(route.getId(), PathPatternParser.defaultInstance.parse(path.trim()),
+                                    route.getUri(), stripPrefix, circuitBreaker, rateLimiter));
+                        }
+                    }
+                }
+            }
+        }
+        logger.info("Batch endpoint can reach routes: {}", targets.stream().map(Target::routeId).distinct().toList());
+    }
+
+    /**
+     * The backend call for a gateway path (which may carry a query string), or null if no batchable route matches.
+     * For {@code lb://} routes the URI keeps that scheme and the caller picks the instance.
+     */
+    public Resolved resolve(String pathAndQuery) {
+        URI requested;
+        try {
+            // Normalized so dot segments cannot climb out of the matched route prefix
+            requested = new URI(pathAndQuery).normalize();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        if (requested.isAbsolute() || requested.getRawAuthority() != null
+                || requested.getRawPath() == null || !requested.getRawPath().startsWith("/")) {
+            return null;
+        }
+        PathContainer path = PathContainer.parsePath(requested.getRawPath());
+        for (Target target : targets) {
+            if (target.pattern.matches(path)) {
+                URI uri = UriComponentsBuilder.fromUri(target.uri)
+                        .replacePath(strip(requested.getRawPath(), target.stripPrefix))
+                        .replaceQuery(requested.getRawQuery())
+                        .build(true)
+                        .toUri();
+                return new Resolved(target.routeId, uri, target.circuitBreaker, target.rateLimiter);
+            }
+        }
+        return null;
+    }
+
+    // Same rule as the StripPrefix filter: drop the first n segments
+    private static String strip(String path, int parts) {
+        String stripped = path;
+        for (int i = 0; i < parts; i++) {
+            int next = stripped.indexOf('/', 1);
+            stripped = next > 0 ? stripped.substring(next) : "/";
+        }
+        return stripped;
+    }
+
+    // Same limiter the route's RequestRateLimiter uses: the referenced bean, or the default one
+    private static RateLimiter<?> rateLimiter(String routeId, String reference, BeanFactory beanFactory,
+                                              ObjectProvider<RateLimiter<?>> defaultRateLimiter) {
+        if (reference == null) {
+            RateLimiter<?> rateLimiter = defaultRateLimiter.getIfUnique();
+            if (rateLimiter == null) {
+                throw new IllegalStateException("No default rate limiter for batch parts of route " + routeId);
+            }
+            return rateLimiter;
+        }
+        Matcher matcher = BEAN_REFERENCE.matcher(reference.trim());
+        if (!matcher.matches()) {
+            throw new IllegalStateException("Rate limiter of route " + routeId + " must be a bean reference like #{@name}: " + reference);
+        }
+        return beanFactory.getBean(matcher.group(1), RateLimiter.class);
+    }
+
+    private static String firstArg(String named, Iterable<String> values) {
+        // Shortcut notation (StripPrefix=1) stores the value under a generated key
+        if (named != null) {
+            return named;
+        }
+        for (String value : values) {
+            return value;
+        }
+        return null;
+    }
+
+    private record Target(String routeId, PathPattern pattern, URI uri, int stripPrefix, String circuitBreaker,
+                          RateLimiter<?> rateLimiter) {
+    }
+
+    /**
+     * Where to send a part, and the route's circuit breaker name and rate limiter, either of which may be null.
+     */
+    public record Resolved(String routeId, URI uri, String circuitBreaker, RateLimiter<?> rateLimiter) {
+    }
+}
@@ -0,0 +1,247 @@
+package com.api.apigateway.service;
+
+import com.api.apigateway.filter.AdaptiveConcurrencyFilter;
+import com.api.apigateway.loadbalancer.UpstreamInstanceStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.support.DelegatingServiceInstance;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fans the parts of a batch request out to their backends concurrently and streams one JSON object back,
+ * {@code {"<part id>": {"status": 200, "body": ...}, ...}}, with each part written as soon as it completes.
+ * <p>
+ * A part that times out, fails or hits an open circuit breaker gets an error entry instead of failing the batch.
+ * Parts go straight to the backend the route forwards to, so the batch's token is verified once by the security
+ * chain and not again per part. Each part is still charged to its route's rate limiter, under the caller's rate
+ * limit key, and takes a slot of the route's adaptive concurrency limit, so batching cannot get around either;
+ * a part turned away gets a 429 or 503 entry.
+ */
+@Service
+public class BatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchService.class);
+
+    private static final byte[] NO_BODY = new byte[0];
+
+    private final WebClient webClient;
+
+    private final BatchRouteResolver routeResolver;
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final ObjectMapper objectMapper;
+
+    private final ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancerFactory;
+
+    private final UpstreamInstanceStats instanceStats;
+
+    private final AdaptiveConcurrencyFilter concurrencyFilter;
+
+    private final Duration defaultTimeout;
+
+    private final Duration maxTimeout;
+
+    public BatchService(WebClient webClient,
+                        BatchRouteResolver routeResolver,
+                        CircuitBreakerRegistry circuitBreakerRegistry,
+                        ObjectMapper objectMapper,
+                        ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancerFactory,
+                        UpstreamInstanceStats instanceStats,
+                        AdaptiveConcurrencyFilter concurrencyFilter,
+                        @Value("${gateway.batch.default-timeout:2s}") Duration defaultTimeout,
+                        @Value("${gateway.batch.max-timeout:10s}") Duration maxTimeout) {
+        this.webClient = webClient;
+        this.routeResolver = routeResolver;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.objectMapper = objectMapper;
+        this.loadBalancerFactory = loadBalancerFactory;
+        this.instanceStats = instanceStats;
+        this.concurrencyFilter = concurrencyFilter;
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    /**
+     * Run every part with the given forwarded headers, emitting the combined document in chunks.
+     *
+     * @param rateLimitKey the caller's key for the routes' rate limiters, as the route's key resolver gives it
+     */
+    public Flux<DataBuffer> execute(Map<String, Part> parts, HttpHeaders forwardedHeaders, String rateLimitKey,
+                                    DataBufferFactory bufferFactory) {
+        return Flux.fromIterable(parts.entrySet())
+                .flatMap(part -> call(part.getValue(), forwardedHeaders, rateLimitKey)
+                        .map(result -> render(part.getKey(), result)), parts.size())
+                .index()
+                .map(indexed -> {
+                    byte[] fragment = indexed.getT2();
+                    byte[] chunk = new byte[fragment.length + 1];
+                    chunk[0] = (byte) (indexed.getT1() == 0 ? '{' : ',');
+                    System.arraycopy(fragment, 0, chunk, 1, fragment.length);
+                    return bufferFactory.wrap(chunk);
+                })
+                .concatWith(Mono.fromSupplier(() -> bufferFactory.wrap(new byte[]{'}'})));
+    }
+
+    private Mono<PartResult> call(Part part, HttpHeaders forwardedHeaders, String rateLimitKey) {
+        BatchRouteResolver.Resolved resolved = part.path() != null ? routeResolver.resolve(part.path()) : null;
+        if (resolved == null) {
+            return Mono.just(PartResult.error(404, "No batchable route for path " + part.path()));
+        }
+        Duration timeout = timeoutFor(part);
+
+        // Same order as on the route: the rate limiter first, then a concurrency slot for the upstream call
+        Mono<PartResult> call = concurrencyFilter.limit(resolved.routeId(),
+                Mono.defer(() -> forward(resolved, forwardedHeaders, timeout)),
+                result -> result.status() >= 500,
+                () -> PartResult.error(503, "Service is at capacity, please retry shortly"));
+        if (resolved.rateLimiter() == null) {
+            return call;
+        }
+        return resolved.rateLimiter().isAllowed(resolved.routeId(), rateLimitKey)
+                .flatMap(response -> response.isAllowed()
+                        ? call
+                        : Mono.just(PartResult.error(429, "Too many requests, please retry shortly")));
+    }
+
+    private Mono<PartResult> forward(BatchRouteResolver.Resolved resolved, HttpHeaders forwardedHeaders, Duration timeout) {
+        if ("lb".equals(resolved.uri().getScheme())) {
+            String serviceId = resolved.uri().getHost();
+            return Mono.from(loadBalancerFactory.getInstance(serviceId).choose(new DefaultRequest<>()))
+                    .flatMap(response -> {
+                        if (!response.hasServer()) {
+                            return Mono.just(PartResult.error(503, "No instance available for " + serviceId));
+                        }
+                        ServiceInstance instance = response.getServer();
+                        URI uri = LoadBalancerUriTools.reconstructURI(
+                                new DelegatingServiceInstance(instance, instance.isSecure() ? "https" : "http"), resolved.uri());
+                        return call(uri, instance, resolved, forwardedHeaders, timeout);
+                    });
+        }
+        return call(resolved.uri(), null, resolved, forwardedHeaders, timeout);
+    }
+
+    private Mono<PartResult> call(URI uri, ServiceInstance instance, BatchRouteResolver.Resolved resolved,
+                                  HttpHeaders forwardedHeaders, Duration timeout) {
+        Mono<PartResult> call = webClient.get()
+                .uri(uri)
+                .headers(headers -> headers.addAll(forwardedHeaders))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToMono(response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(NO_BODY)
+                        .map(body -> new PartResult(response.statusCode().value(),
+                                response.headers().contentType().orElse(null), body, null)))
+                // Server errors count against the route's circuit breaker like they do on the proxied route
+                .flatMap(result -> result.status() >= 500 ? Mono.error(new UpstreamError(result)) : Mono.just(result))
+                .timeout(timeout);
+        if (instance != null) {
+            // Batch parts count towards the instance's load and health like proxied calls do
+            Mono<PartResult> upstream = call;
+            call = Mono.defer(() -> {
+                UpstreamInstanceStats.Call tracked = instanceStats.start(instance);
+                return upstream.doOnNext(result -> tracked.finish(true, null))
+                        .doOnError(e -> tracked.finish(false, e))
+                        // Cancelled by the caller going away; the part's own timeout arrives as an error
+                        .doFinally(signal -> tracked.ignore());
+            });
+        }
+        if (resolved.circuitBreaker() != null) {
+            call = call.transform(CircuitBreakerOperator.of(circuitBreakerRegistry.circuitBreaker(resolved.circuitBreaker())));
+        }
+
+        return call.onErrorResume(e -> {
+            if (e instanceof UpstreamError upstreamError) {
+                return Mono.just(upstreamError.result);
+            }
+            if (e instanceof TimeoutException) {
+                return Mono.just(PartResult.error(504, "Timed out after " + timeout.toMillis() + "ms"));
+            }
+            if (e instanceof CallNotPermittedException) {
+                return Mono.just(PartResult.error(503, "Service is currently unavailable"));
+            }
+            logger.warn("Batch part {} failed: {}", uri, e.getMessage());
+            return Mono.just(PartResult.error(502, "Upstream call failed"));
+        });
+    }
+
+    private Duration timeoutFor(Part part) {
+        if (part.timeoutMs() == null || part.timeoutMs() <= 0) {
+            return defaultTimeout;
+        }
+        Duration requested = Duration.ofMillis(part.timeoutMs());
+        return requested.compareTo(maxTimeout) > 0 ? maxTimeout : requested;
+    }
+
+    private byte[] render(String id, PartResult result) {
+        try {
+            ByteArrayOutputStream json = new ByteArrayOutputStream(result.body().length + 64);
+            json.write(objectMapper.writeValueAsBytes(id));
+            json.write((":{\"status\":" + result.status()).getBytes(StandardCharsets.UTF_8));
+            if (result.error() != null) {
+                json.write(",\"error\":".getBytes(StandardCharsets.UTF_8));
+                json.write(objectMapper.writeValueAsBytes(result.error()));
+            } else if (result.body().length > 0) {
+                json.write(",\"body\":".getBytes(StandardCharsets.UTF_8));
+                // JSON bodies are embedded as is, anything else as a string
+                if (MediaType.APPLICATION_JSON.isCompatibleWith(result.contentType())) {
+                    json.write(result.body());
+                } else {
+                    json.write(objectMapper.writeValueAsBytes(new String(result.body(), StandardCharsets.UTF_8)));
+                }
+            }
+            json.write('}');
+            return json.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't render batch part " + id, e);
+        }
+    }
+
+    /**
+     * One sub-request: a gateway path such as {@code /api/user/profile} and an optional timeout.
+     */
+    public record Part(String path, Long timeoutMs) {
+    }
+
+    private record PartResult(int status, MediaType contentType, byte[] body, String error) {
+
+        static PartResult error(int status, String message) {
+            return new PartResult(status, null, NO_BODY, message);
+        }
+    }
+
+    private static final class UpstreamError extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final PartResult result;
+
+        private UpstreamError(PartResult result) {
+            super("Upstream returned " + result.status(), null, false, false);
+            this.result = result;
+        }
+    }
+}
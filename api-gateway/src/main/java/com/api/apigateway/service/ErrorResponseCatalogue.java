@@ -0,0 +1,148 @@
+package com.api.apigateway.service;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-encoded JSON bodies for the gateway's own error responses (the filter's 401s and the fallback 503s).
+ * <p>
+ * Each body is rendered once and re-rendered at most once per second to refresh its timestamp, so serving an
+ * error during a credential stuffing burst or a backend outage only wraps an existing byte array.
+ */
+@Component
+public class ErrorResponseCatalogue {
+
+    // Only fixed messages belong here; the cap is a safety net should request data ever reach forStatus
+    private static final int MAX_MESSAGES_PER_STATUS = 256;
+
+    private final Map<HttpStatus, Map<String, ErrorBody>> byStatus = new ConcurrentHashMap<>();
+
+    private volatile Timestamp timestamp = new Timestamp(-1, new byte[0]);
+
+    /**
+     * A body with fixed fields followed by the timestamp, for responses known up front.
+     */
+    public ErrorBody define(Map<String, Object> fields) {
+        return new ErrorBody(fields);
+    }
+
+    /**
+     * The standard gateway error body for a status and a message fixed in code, built once and shared.
+     * Messages that can carry request data, such as exception text, go through {@link #forMessage} instead.
+     */
+    public ErrorBody forStatus(HttpStatus status, String message) {
+        Map<String, ErrorBody> messages = byStatus.computeIfAbsent(status, key -> new ConcurrentHashMap<>());
+        ErrorBody body = messages.get(message);
+        if (body != null) {
+            return body;
+        }
+        body = define(standardFields(status, message));
+        if (messages.size() < MAX_MESSAGES_PER_STATUS) {
+            ErrorBody existing = messages.putIfAbsent(message, body);
+            return existing != null ? existing : body;
+        }
+        return body;
+    }
+
+    /**
+     * The standard gateway error body for a message that can vary per request. A message already built through
+     * {@link #forStatus} is reused, anything else is encoded for this response only and never cached.
+     */
+    public ErrorBody forMessage(HttpStatus status, String message) {
+        Map<String, ErrorBody> messages = byStatus.get(status);
+        ErrorBody body = messages != null ? messages.get(message) : null;
+        return body != null ? body : define(standardFields(status, message));
+    }
+
+    public Mono<Void> write(ServerHttpResponse response, HttpStatus status, ErrorBody body) {
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.bytes())));
+    }
+
+    private static Map<String, Object> standardFields(HttpStatus status, String message) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("error", status.getReasonPhrase());
+        fields.put("message", message);
+        fields.put("status", status.value());
+        return fields;
+    }
+
+    private byte[] currentTimestamp() {
+        long second = System.currentTimeMillis() / 1000;
+        Timestamp current = timestamp;
+        if (current.second != second) {
+            LocalDateTime now = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault());
+            current = new Timestamp(second, now.toString().getBytes(StandardCharsets.UTF_8));
+            timestamp = current;
+        }
+        return current.bytes;
+    }
+
+    private record Timestamp(long second, byte[] bytes) {
+    }
+
+    private record Rendered(byte[] timestamp, byte[] body) {
+    }
+
+    public final class ErrorBody {
+
+        // {"field":"value",...,"timestamp":"   and   "}
+        private final byte[] prefix;
+
+        private final byte[] suffix = "\"}".getBytes(StandardCharsets.UTF_8);
+
+        private volatile Rendered rendered = new Rendered(new byte[0], new byte[0]);
+
+        private ErrorBody(Map<String, Object> fields) {
+            StringBuilder json = new StringBuilder("{");
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                appendString(json, field.getKey()).append(':');
+                Object value = field.getValue();
+                if (value instanceof Number || value instanceof Boolean) {
+                    json.append(value);
+                } else {
+                    appendString(json, String.valueOf(value));
+                }
+                json.append(',');
+            }
+            json.append("\"timestamp\":\"");
+            this.prefix = json.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * The encoded body. Callers must not modify the returned array.
+         */
+        public byte[] bytes() {
+            byte[] stamp = currentTimestamp();
+            Rendered current = rendered;
+            if (current.timestamp != stamp) {
+                byte[] body = new byte[prefix.length + stamp.length + suffix.length];
+                System.arraycopy(prefix, 0, body, 0, prefix.length);
+                System.arraycopy(stamp, 0, body, prefix.length, stamp.length);
+                System.arraycopy(suffix, 0, body, prefix.length + stamp.length, suffix.length);
+                current = new Rendered(stamp, body);
+                rendered = current;
+            }
+            return current.body;
+        }
+
+        private static StringBuilder appendString(StringBuilder json, String value) {
+            json.append('"');
+            JsonStringEncoder.getInstance().quoteAsString(value, json);
+            return json.append('"');
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.api.apigateway.service;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Owns the auth-server JWK set for the gateway.
+ * The set is prefetched at startup and refreshed in the background. A token with an unknown kid
+ * triggers a reload, but at most once per minimum reload interval, and concurrent callers always
+ * share a single in-flight fetch so key rotation never stampedes the /oauth2/jwks endpoint.
+ */
+@Component
+public class JwkSetManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwkSetManager.class);
+
+    private final WebClient webClient;
+
+    private final String jwkSetUri;
+
+    private final Duration timeout;
+
+    private final Duration refreshInterval;
+
+    private final long minReloadIntervalNanos;
+
+    private final AtomicReference<Mono<JWKSet>> inFlight = new AtomicReference<>();
+
+    private final AtomicLong lastUnknownKidReload = new AtomicLong(System.nanoTime());
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    private volatile JWKSet jwkSet;
+
+    public JwkSetManager(WebClient webClient,
+                         @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+                         @Value("${gateway.jwt.jwks.timeout:5s}") Duration timeout,
+                         @Value("${gateway.jwt.jwks.refresh-interval:10m}") Duration refreshInterval,
+                         @Value("${gateway.jwt.jwks.min-reload-interval:30s}") Duration minReloadInterval) {
+        this.webClient = webClient;
+        this.jwkSetUri = jwkSetUri;
+        this.timeout = timeout;
+        this.refreshInterval = refreshInterval;
+        this.minReloadIntervalNanos = minReloadInterval.toNanos();
+        this.lastUnknownKidReload.addAndGet(-minReloadIntervalNanos);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscriptions.add(reload()
+                .onErrorResume(e -> {
+                    logger.warn("JWK set prefetch failed, the first request will retry: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .subscribe());
+
+        subscriptions.add(Flux.interval(refreshInterval)
+                .concatMap(tick -> reload()
+                        .onErrorResume(e -> {
+                            logger.warn("Background JWK set refresh failed, keeping the current set: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    /**
+     * The current JWK set, or null if it has not been loaded yet.
+     */
+    public JWKSet getCurrent() {
+        return jwkSet;
+    }
+
+    /**
+     * The current JWK set, loading it first if this gateway has not fetched it yet.
+     */
+    public Mono<JWKSet> ensureLoaded() {
+        JWKSet set = jwkSet;
+        return set != null ? Mono.just(set) : reload();
+    }
+
+    /**
+     * Reload after a token arrived with a kid that is not in the current set.
+     * Outside the rate limit window the current set is returned unchanged.
+     */
+    public Mono<JWKSet> reloadForUnknownKid(String kid) {
+        Mono<JWKSet> running = inFlight.get();
+        if (running != null) {
+            return running;
+        }
+
+        long now = System.nanoTime();
+        long last = lastUnknownKidReload.get();
+        if (now - last < minReloadIntervalNanos || !lastUnknownKidReload.compareAndSet(last, now)) {
+            logger.debug("Unknown kid {} but JWK set reload is rate limited", kid);
+            return ensureLoaded();
+        }
+
+        logger.info("Unknown kid {}, reloading JWK set", kid);
+        return reload();
+    }
+
+    /**
+     * Fetch the JWK set. Concurrent callers share one fetch; it is not cached past completion.
+     */
+    public Mono<JWKSet> reload() {
+        while (true) {
+            Mono<JWKSet> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+
+            Sinks.One<JWKSet> sink = Sinks.one();
+            Mono<JWKSet> shared = sink.asMono();
+            if (inFlight.compareAndSet(null, shared)) {
+                fetch()
+                        .doFinally(signal -> inFlight.compareAndSet(shared, null))
+                        .subscribe(sink::tryEmitValue, sink::tryEmitError, sink::tryEmitEmpty);
+                return shared;
+            }
+        }
+    }
+
+    private Mono<JWKSet> fetch() {
+        return webClient.get()
+                .uri(jwkSetUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(timeout)
+                .map(body -> {
+                    try {
+                        return JWKSet.parse(body);
+                    } catch (ParseException e) {
+                        throw new IllegalStateException("Invalid JWK set from " + jwkSetUri + ": " + e.getMessage(), e);
+                    }
+                })
+                .doOnSubscribe(subscription -> logger.info("Loading JWK set from URI: {}", jwkSetUri))
+                .doOnNext(set -> {
+                    jwkSet = set;
+                    logger.info("JWK set loaded successfully with {} keys", set.getKeys().size());
+                });
+    }
+}
@@ -1,23 +1,16 @@
 package com.api.apigateway.service;
 
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.proc.JWSKeySelector;
-import com.nimbusds.jose.proc.JWSVerificationKeySelector;
-import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
-import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.nimbusds.jwt.SignedJWT;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.net.URL;
-import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 
 @Service
@@ -25,72 +18,107 @@ public class JwtValidationService {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtValidationService.class);
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    // Failure messages that carry no request data, the gateway's 401 bodies for them are pre-encoded
+    public static final String INVALID_TOKEN = "Invalid JWT signature or claims";
+
+    public static final String REVOKED_TOKEN = "Token has been revoked";
+
+    public static final String REVOCATION_UNAVAILABLE = "Unable to verify token revocation status";
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+
+    private final JwtVerificationEngine verificationEngine;
+
+    private final TokenValidationCache validationCache;
+
+    private final RevokedTokenRegistry revokedTokenRegistry;
 
     @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
     private String issuerUri;
 
-    @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
-    private String jwkSetUri;
+    @Value("${gateway.jwt.blacklist.timeout:500ms}")
+    private Duration blacklistTimeout;
 
-    private static final String BLACKLIST_PREFIX = "blacklist:";
+    @Value("${gateway.jwt.blacklist.fail-open:false}")
+    private boolean blacklistFailOpen;
 
-    private JWKSet cachedJwkSet;
+    private static final String BLACKLIST_PREFIX = "blacklist:";
 
-    public JwtValidationService(RedisTemplate<String, Object> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public JwtValidationService(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+                                JwtVerificationEngine verificationEngine,
+                                TokenValidationCache validationCache,
+                                RevokedTokenRegistry revokedTokenRegistry) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.verificationEngine = verificationEngine;
+        this.validationCache = validationCache;
+        this.revokedTokenRegistry = revokedTokenRegistry;
     }
 
     public Mono<JWTValidationResult> validateToken(String token) {
-        return Mono.fromCallable(() -> {
-            logger.info("Starting JWT validation");
-            try {
-                // Validate JWT signature and claims first
-                JWTClaimsSet claimsSet = validateJwtSignature(token);
-                if (claimsSet == null) {
-                    logger.error("JWT signature or claims invalid");
-                    return new JWTValidationResult(false, "Invalid JWT signature or claims", null, null);
-                }
-
-                // Extract JTI from validated claims
-                String jti = claimsSet.getJWTID();
-                logger.debug("Extracted JTI from validated claims: {}", jti);
-
-                // Check blacklist using the extracted JTI
-                if (isTokenBlacklisted(jti)) {
-                    logger.warn("Token is blacklisted for JTI: {}", jti);
-                    return new JWTValidationResult(false, "Token has been revoked", null, null);
-                }
-
-                logger.info("JWT successfully validated for subject: {}", claimsSet.getSubject());
-                return new JWTValidationResult(true, "Token is valid", claimsSet, extractAuthorities(claimsSet));
-
-            } catch (Exception e) {
-                logger.error("JWT validation failed: {}", e.getMessage(), e);
-                return new JWTValidationResult(false, "Token validation failed: " + e.getMessage(), null, null);
-            }
-        });
-    }
+        logger.debug("Starting JWT validation");
 
-    private JWTClaimsSet validateJwtSignature(String token) {
-        try {
-            logger.info("Validating JWT signature and claims");
+        // A cached result has already passed signature and claim checks, only revocation can change it
+        JWTValidationResult cached = validationCache.get(token);
+        if (cached != null) {
+            return checkRevocation(token, cached);
+        }
 
-            if (cachedJwkSet == null) {
-                logger.info("Loading JWK set from URI: {}", jwkSetUri);
-                cachedJwkSet = JWKSet.load(new URL(jwkSetUri));
-                logger.info("JWK set loaded successfully");
-            }
+        return verificationEngine.prepare(token)
+                .map(jwt -> {
+                    // Validate JWT signature and claims first
+                    JWTClaimsSet claimsSet = validateJwtSignature(jwt);
+                    if (claimsSet == null) {
+                        logger.error("JWT signature or claims invalid");
+                        return new JWTValidationResult(false, INVALID_TOKEN, null, null);
+                    }
+                    return new JWTValidationResult(true, "Token is valid", claimsSet, extractAuthorities(claimsSet),
+                            jwt.getHeader().toJSONObject());
+                })
+                .flatMap(result -> result.isValid() ? checkRevocation(token, result) : Mono.just(result))
+                .doOnNext(result -> {
+                    if (result.isValid()) {
+                        logger.debug("JWT successfully validated for subject: {}", result.getClaimsSet().getSubject());
+                        validationCache.put(token, result);
+                    }
+                })
+                .onErrorResume(e -> {
+                    logger.error("JWT validation failed: {}", e.getMessage(), e);
+                    return Mono.just(new JWTValidationResult(false, "Token validation failed: " + e.getMessage(), null, null));
+                });
+    }
 
-            JWKSource<SecurityContext> jwkSource = (jwkSelector, context) -> jwkSelector.select(cachedJwkSet);
+    private Mono<JWTValidationResult> checkRevocation(String token, JWTValidationResult result) {
+        String jti = result.getClaimsSet().getJWTID();
+        logger.debug("Extracted JTI from validated claims: {}", jti);
+
+        return isTokenBlacklisted(jti)
+                .map(blacklisted -> {
+                    if (blacklisted) {
+                        logger.warn("Token is blacklisted for JTI: {}", jti);
+                        validationCache.invalidate(token);
+                        return new JWTValidationResult(false, REVOKED_TOKEN, null, null);
+                    }
+                    return result;
+                })
+                .onErrorResume(e -> {
+                    if (blacklistFailOpen) {
+                        logger.warn("Blacklist lookup failed for JTI {}, failing open: {}", jti, e.toString());
+                        return Mono.just(result);
+                    }
+                    logger.error("Blacklist lookup failed for JTI {}, failing closed: {}", jti, e.toString());
+                    return Mono.just(new JWTValidationResult(false, REVOCATION_UNAVAILABLE, null, null));
+                });
+    }
 
-            ConfigurableJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
-            JWSKeySelector<SecurityContext> keySelector = new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource);
-            jwtProcessor.setJWSKeySelector(keySelector);
+    private JWTClaimsSet validateJwtSignature(SignedJWT jwt) {
+        try {
+            logger.debug("Validating JWT signature and claims");
 
-            JWTClaimsSet claimsSet = jwtProcessor.process(token, null);
+            JWTClaimsSet claimsSet = verificationEngine.process(jwt);
 
-            logger.debug("JWT claims: {}", claimsSet.toJSONObject());
+            if (logger.isDebugEnabled()) {
+                logger.debug("JWT claims: {}", claimsSet.toJSONObject());
+            }
 
             // Validate issuer
             if (!issuerUri.equals(claimsSet.getIssuer())) {
@@ -111,7 +139,7 @@ public class JwtValidationService {
                 return null;
             }
 
-            logger.info("JWT signature and claims validation passed");
+            logger.debug("JWT signature and claims validation passed");
             return claimsSet;
 
         } catch (Exception e) {
@@ -120,14 +148,32 @@ public class JwtValidationService {
         }
     }
 
-    private boolean isTokenBlacklisted(String jti) {
+    private Mono<Boolean> isTokenBlacklisted(String jti) {
+        RevokedTokenRegistry.RevocationStatus status = revokedTokenRegistry.lookup(jti);
+        switch (status) {
+            case REVOKED:
+                return Mono.just(true);
+            case NOT_REVOKED:
+                return Mono.just(false);
+            default:
+                break;
+        }
+
+        // Either the near-cache is out of sync or the filter reported a candidate that needs confirming
         String key = BLACKLIST_PREFIX + jti;
-        boolean isBlacklisted = Boolean.TRUE.equals(redisTemplate.hasKey(key));
-        logger.info("Checking blacklist for JTI {}: {}", jti, isBlacklisted);
-        return isBlacklisted;
+        return reactiveRedisTemplate.hasKey(key)
+                .timeout(blacklistTimeout)
+                .defaultIfEmpty(false)
+                .doOnNext(isBlacklisted -> {
+                    if (status == RevokedTokenRegistry.RevocationStatus.POSSIBLY_REVOKED) {
+                        revokedTokenRegistry.recordConfirmation(isBlacklisted);
+                    }
+                    logger.debug("Checking blacklist for JTI {}: {}", jti, isBlacklisted);
+                });
     }
 
-    private List<String> extractAuthorities(JWTClaimsSet claimsSet) {
+    // Package-private so the benchmarks module can measure it in isolation
+    List<String> extractAuthorities(JWTClaimsSet claimsSet) {
         try {
             Object authorities = claimsSet.getClaim("authorities");
             if (authorities instanceof List<?>) {
@@ -155,20 +201,40 @@ public class JwtValidationService {
         return Collections.emptyList();
     }
 
-    public void blacklistToken(String token) {
-        try {
-            JWTClaimsSet claimsSet = validateJwtSignature(token);
-            if (claimsSet != null) {
-                String jti = claimsSet.getJWTID();
-                String key = BLACKLIST_PREFIX + jti;
-                redisTemplate.opsForValue().set(key, true);
-                logger.info("Token blacklisted with JTI: {}", jti);
-            } else {
-                logger.warn("Could not blacklist token - invalid signature");
-            }
-        } catch (Exception e) {
-            logger.error("Error blacklisting token: {}", e.getMessage());
-        }
+    public Mono<Boolean> blacklistToken(String token) {
+        return verificationEngine.prepare(token)
+                .mapNotNull(this::validateJwtSignature)
+                .flatMap(claimsSet -> {
+                    String jti = claimsSet.getJWTID();
+                    String key = BLACKLIST_PREFIX + jti;
+                    // The blacklist entry only needs to live as long as the token itself
+                    Date expiry = claimsSet.getExpirationTime();
+                    Mono<Boolean> write;
+                    if (expiry == null) {
+                        write = reactiveRedisTemplate.opsForValue().set(key, true);
+                    } else {
+                        Duration ttl = Duration.between(Instant.now(), expiry.toInstant());
+                        write = ttl.isNegative() || ttl.isZero()
+                                ? Mono.just(true)
+                                : reactiveRedisTemplate.opsForValue().set(key, true, ttl);
+                    }
+                    long expiresAt = expiry != null ? expiry.getTime() : Long.MAX_VALUE;
+                    return write
+                            .flatMap(written -> revokedTokenRegistry.publishRevocation(jti, expiresAt).thenReturn(written))
+                            .timeout(blacklistTimeout)
+                            .doOnNext(written -> {
+                                validationCache.invalidate(token);
+                                logger.info("Token blacklisted with JTI: {}", jti);
+                            });
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("Could not blacklist token - invalid signature");
+                    return false;
+                }))
+                .onErrorResume(e -> {
+                    logger.error("Error blacklisting token: {}", e.getMessage());
+                    return Mono.just(false);
+                });
     }
 
     public static class JWTValidationResult {
@@ -176,17 +242,25 @@ public class JwtValidationService {
         private final String message;
         private final JWTClaimsSet claimsSet;
         private final List<String> authorities;
+        private final Map<String, Object> headers;
 
         public JWTValidationResult(boolean valid, String message, JWTClaimsSet claimsSet, List<String> authorities) {
+            this(valid, message, claimsSet, authorities, Collections.emptyMap());
+        }
+
+        public JWTValidationResult(boolean valid, String message, JWTClaimsSet claimsSet, List<String> authorities,
+                                   Map<String, Object> headers) {
             this.valid = valid;
             this.message = message;
             this.claimsSet = claimsSet;
             this.authorities = authorities;
+            this.headers = headers;
         }
 
         public boolean isValid() { return valid; }
         public String getMessage() { return message; }
         public JWTClaimsSet getClaimsSet() { return claimsSet; }
         public List<String> getAuthorities() { return authorities; }
+        public Map<String, Object> getHeaders() { return headers; }
     }
 }
@@ -0,0 +1,235 @@
+package com.api.apigateway.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Long-lived, thread-safe JWT verification engine.
+ * The nimbus processor is built once and the public key and verifier for each
+ * kid are derived from the JWK set only once, so the per-request work is
+ * parsing the token plus a single signature check. RSA and EC keys are both
+ * supported; the algorithm is taken from the key published for the token's kid.
+ * A token without a kid is tried against every key that supports its algorithm.
+ */
+@Component
+public class JwtVerificationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtVerificationEngine.class);
+
+    private final JwkSetManager jwkSetManager;
+
+    private final DefaultJWTProcessor<SecurityContext> jwtProcessor;
+
+    private final Map<String, CachedVerifier> verifiers = new ConcurrentHashMap<>();
+
+    // The JWK set the verifiers were last pruned against
+    private volatile JWKSet verifiedSet;
+
+    private final DefaultJWSVerifierFactory fallbackVerifierFactory = new DefaultJWSVerifierFactory();
+
+    private final Set<JWSAlgorithm> allowedAlgorithms;
+
+    public JwtVerificationEngine(JwkSetManager jwkSetManager,
+                                 @Value("${spring.security.oauth2.resourceserver.jwt.jws-algorithms:RS256}") String[] algorithms) {
+        this.jwkSetManager = jwkSetManager;
+        this.allowedAlgorithms = Arrays.stream(algorithms)
+                .map(String::trim)
+                .map(JWSAlgorithm::parse)
+                .collect(Collectors.toUnmodifiableSet());
+        this.jwtProcessor = new DefaultJWTProcessor<>();
+        this.jwtProcessor.setJWSKeySelector((header, context) -> selectKeys(header));
+        this.jwtProcessor.setJWSVerifierFactory(new CachedVerifierFactory());
+    }
+
+    /**
+     * Parse the token and make sure the JWK set holds a key for its kid, reloading the set
+     * (rate limited) when the kid is unknown, e.g. right after a key rotation.
+     */
+    public Mono<SignedJWT> prepare(String token) {
+        return Mono.fromCallable(() -> SignedJWT.parse(token))
+                .flatMap(jwt -> jwkSetManager.ensureLoaded()
+                        .flatMap(set -> {
+                            String kid = jwt.getHeader().getKeyID();
+                            if (kid == null || set.getKeyByKeyId(kid) != null) {
+                                return Mono.just(set);
+                            }
+                            return jwkSetManager.reloadForUnknownKid(kid);
+                        })
+                        .thenReturn(jwt));
+    }
+
+    /**
+     * Verify the token signature and the standard time claims, returning the claims set.
+     * The token must have gone through {@link #prepare(String)} so its key is loaded.
+     */
+    public JWTClaimsSet process(SignedJWT jwt) throws BadJOSEException, JOSEException {
+        return jwtProcessor.process(jwt, null);
+    }
+
+    private List<? extends Key> selectKeys(JWSHeader header) throws KeySourceException {
+        JWSAlgorithm algorithm = header.getAlgorithm();
+        if (!allowedAlgorithms.contains(algorithm)) {
+            logger.debug("Rejecting token signed with disallowed algorithm: {}", algorithm);
+            return Collections.emptyList();
+        }
+        JWKSet set = currentJwkSet();
+        String kid = header.getKeyID();
+        if (kid == null) {
+            // Without a kid, as when the set holds more than one key during a rotation, every matching key is tried
+            List<Key> keys = new ArrayList<>();
+            for (JWK jwk : set.getKeys()) {
+                CachedVerifier cached = resolve(jwk);
+                if (cached != null && cached.supports(algorithm)) {
+                    keys.add(cached.publicKey);
+                }
+            }
+            return keys;
+        }
+
+        JWK jwk = set.getKeyByKeyId(kid);
+        if (jwk == null) {
+            logger.debug("No key found in JWK set for kid: {}", kid);
+            return Collections.emptyList();
+        }
+        CachedVerifier cached = resolve(jwk);
+        // The key for the kid decides the algorithm, a token can't pick another one for the same key
+        if (cached == null || !cached.supports(algorithm)) {
+            return Collections.emptyList();
+        }
+        return cached.keys;
+    }
+
+    private CachedVerifier resolve(JWK jwk) throws KeySourceException {
+        String kid = jwk.getKeyID();
+        CachedVerifier cached = kid != null ? verifiers.get(kid) : null;
+        // The JWK instance only changes when the set is reloaded, so identity tells us the entry is still current
+        if (cached != null && cached.jwk == jwk) {
+            return cached;
+        }
+
+        try {
+            if (jwk instanceof RSAKey rsaKey) {
+                RSAPublicKey publicKey = rsaKey.toRSAPublicKey();
+                cached = new CachedVerifier(jwk, publicKey, new RSASSAVerifier(publicKey), JWSAlgorithm.Family.RSA);
+            } else if (jwk instanceof ECKey ecKey) {
+                ECPublicKey publicKey = ecKey.toECPublicKey();
+                cached = new CachedVerifier(jwk, publicKey, new ECDSAVerifier(publicKey), JWSAlgorithm.Family.EC);
+            } else {
+                logger.debug("Unsupported key type {} for kid: {}", jwk.getKeyType(), kid);
+                return null;
+            }
+            // Keys published without a kid are not cached, nothing would tell them apart
+            if (kid != null) {
+                verifiers.put(kid, cached);
+                logger.info("Cached {} verifier for kid: {}", jwk.getKeyType(), kid);
+            }
+            return cached;
+        } catch (JOSEException e) {
+            throw new KeySourceException("Couldn't convert JWK to public key: " + e.getMessage(), e);
+        }
+    }
+
+    private JWKSet currentJwkSet() throws KeySourceException {
+        JWKSet set = jwkSetManager.getCurrent();
+        if (set == null) {
+            throw new KeySourceException("JWK set has not been loaded yet");
+        }
+        if (set != verifiedSet) {
+            // The set was refreshed: drop the verifiers of keys that were retired from it
+            verifiedSet = set;
+            verifiers.keySet().removeIf(kid -> set.getKeyByKeyId(kid) == null);
+        }
+        return set;
+    }
+
+    private static final class CachedVerifier {
+        private final JWK jwk;
+        private final Key publicKey;
+        private final List<Key> keys;
+        private final JWSVerifier verifier;
+        private final JWSAlgorithm.Family family;
+
+        private CachedVerifier(JWK jwk, Key publicKey, JWSVerifier verifier, JWSAlgorithm.Family family) {
+            this.jwk = jwk;
+            this.publicKey = publicKey;
+            this.keys = List.of(publicKey);
+            this.verifier = verifier;
+            this.family = family;
+        }
+
+        private boolean supports(JWSAlgorithm algorithm) {
+            if (jwk.getAlgorithm() != null) {
+                return jwk.getAlgorithm().equals(algorithm);
+            }
+            return family.contains(algorithm);
+        }
+    }
+
+    /**
+     * Hands back the verifier cached alongside the selected key instead of building a new one per token.
+     */
+    private final class CachedVerifierFactory implements JWSVerifierFactory {
+
+        @Override
+        public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+            if (header.getKeyID() != null) {
+                CachedVerifier cached = verifiers.get(header.getKeyID());
+                if (cached != null && cached.publicKey == key) {
+                    return cached.verifier;
+                }
+            } else {
+                // Tokens without a kid are rare, looking through the few cached keys is cheap enough
+                for (CachedVerifier cached : verifiers.values()) {
+                    if (cached.publicKey == key) {
+                        return cached.verifier;
+                    }
+                }
+            }
+            return fallbackVerifierFactory.createJWSVerifier(header, key);
+        }
+
+        @Override
+        public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+            return fallbackVerifierFactory.supportedJWSAlgorithms();
+        }
+
+        @Override
+        public JCAContext getJCAContext() {
+            return fallbackVerifierFactory.getJCAContext();
+        }
+    }
+}
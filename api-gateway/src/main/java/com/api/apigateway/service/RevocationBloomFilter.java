@@ -0,0 +1,167 @@
+package com.api.apigateway.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-bucketed Bloom filter of revoked JTIs.
+ * Each JTI goes into the generation covering its expiry time, so once a generation's window has
+ * passed every entry in it has expired and the whole generation is dropped at once. Generations are
+ * allocated lazily, so memory is bounded by the number of live windows times the per-window size.
+ */
+public class RevocationBloomFilter {
+
+    private final long bucketMillis;
+
+    private final long maxTtlMillis;
+
+    private final int bitsPerGeneration;
+
+    private final int hashFunctions;
+
+    private final ConcurrentNavigableMap<Long, Generation> generations = new ConcurrentSkipListMap<>();
+
+    public RevocationBloomFilter(long expectedInsertionsPerBucket, double falsePositiveRate,
+                                 Duration bucketDuration, Duration maxTtl) {
+        if (expectedInsertionsPerBucket <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive and false positive rate in (0, 1)");
+        }
+        this.bucketMillis = bucketDuration.toMillis();
+        this.maxTtlMillis = maxTtl.toMillis();
+
+        // Standard sizing: m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long bits = (long) Math.ceil(-expectedInsertionsPerBucket * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitsPerGeneration = (int) Math.min(Integer.MAX_VALUE - 63L, Math.max(64L, bits));
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitsPerGeneration / expectedInsertionsPerBucket * Math.log(2)));
+    }
+
+    /**
+     * Add a JTI that expires at the given time. Expiries beyond the maximum TTL are capped to it,
+     * the periodic rebuild from Redis re-adds anything that is still blacklisted.
+     */
+    public void put(String jti, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        long bucket = Math.min(expiresAtMillis, now + maxTtlMillis) / bucketMillis;
+        generations.computeIfAbsent(bucket, key -> new Generation(bitsPerGeneration)).put(jti);
+    }
+
+    public boolean mightContain(String jti) {
+        long currentBucket = System.currentTimeMillis() / bucketMillis;
+        // Generations before the current window only hold expired entries and are skipped
+        for (Generation generation : generations.tailMap(currentBucket, true).values()) {
+            if (generation.mightContain(jti)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop whole generations whose window has passed.
+     */
+    public void dropExpiredGenerations() {
+        generations.headMap(System.currentTimeMillis() / bucketMillis, false).clear();
+    }
+
+    public int generationCount() {
+        return generations.size();
+    }
+
+    public long approximateEntries() {
+        return generations.values().stream().mapToLong(generation -> generation.insertions.get()).sum();
+    }
+
+    public long memoryBytes() {
+        return (long) generations.size() * (bitsPerGeneration / 8);
+    }
+
+    /**
+     * False positive probability of a lookup against the live generations, derived from their fill ratio.
+     */
+    public double expectedFalsePositiveRate() {
+        long currentBucket = System.currentTimeMillis() / bucketMillis;
+        double missAll = 1.0;
+        for (Generation generation : generations.tailMap(currentBucket, true).values()) {
+            double fill = (double) generation.bitCount.get() / bitsPerGeneration;
+            missAll *= 1.0 - Math.pow(fill, hashFunctions);
+        }
+        return 1.0 - missAll;
+    }
+
+    private final class Generation {
+
+        private final AtomicLongArray words;
+
+        private final AtomicLong bitCount = new AtomicLong();
+
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Generation(int bits) {
+            this.words = new AtomicLongArray((bits + 63) / 64);
+        }
+
+        private void put(String jti) {
+            long hash1 = hash(jti);
+            long hash2 = mix(hash1) | 1;
+            for (int i = 0; i < hashFunctions; i++) {
+                if (setBit(Math.floorMod(hash1 + i * hash2, (long) bitsPerGeneration))) {
+                    bitCount.incrementAndGet();
+                }
+            }
+            insertions.incrementAndGet();
+        }
+
+        private boolean mightContain(String jti) {
+            long hash1 = hash(jti);
+            long hash2 = mix(hash1) | 1;
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, (long) bitsPerGeneration);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean setBit(long bit) {
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            while (true) {
+                long current = words.get(index);
+                if ((current & mask) != 0) {
+                    return false;
+                }
+                if (words.compareAndSet(index, current, current | mask)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // MurmurHash3 finalizer, spreads the bits for the second hash in double hashing
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb93fe53e88cdL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,332 @@
+package com.api.apigateway.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process set of revoked JTIs, seeded from a SCAN of the Redis blacklist and kept current
+ * through the revocation channel that auth-server publishes to. While the registry is in sync
+ * a local miss means "not revoked" and no Redis round trip is needed.
+ * <p>
+ * In {@code bloom} mode the exact map is replaced by a {@link RevocationBloomFilter} so memory stays
+ * bounded for very large blacklists; a filter hit is then only a candidate that Redis must confirm.
+ */
+@Component
+public class RevokedTokenRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedTokenRegistry.class);
+
+    private static final String BLACKLIST_PREFIX = "blacklist:";
+
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private static final Retry RECONNECT = Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+            .maxBackoff(Duration.ofSeconds(30))
+            .transientErrors(true);
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+
+    private final TokenValidationCache validationCache;
+
+    private final Map<String, Long> revokedJtis = new ConcurrentHashMap<>();
+
+    private final AtomicLong filterLookups = new AtomicLong();
+
+    private final AtomicLong filterConfirmedRevoked = new AtomicLong();
+
+    private final AtomicLong filterFalsePositives = new AtomicLong();
+
+    private volatile RevocationBloomFilter filter;
+
+    private volatile RevocationBloomFilter rebuilding;
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    private final Disposable.Swap seeding = Disposables.swap();
+
+    @Value("${gateway.jwt.revocation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gateway.jwt.revocation.channel:token-revocations}")
+    private String channel;
+
+    @Value("${gateway.jwt.revocation.sweep-interval:1m}")
+    private Duration sweepInterval;
+
+    @Value("${gateway.jwt.revocation.mode:exact}")
+    private String mode;
+
+    @Value("${gateway.jwt.revocation.filter.expected-insertions-per-bucket:1000000}")
+    private long expectedInsertionsPerBucket;
+
+    @Value("${gateway.jwt.revocation.filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${gateway.jwt.revocation.filter.bucket-duration:5m}")
+    private Duration bucketDuration;
+
+    @Value("${gateway.jwt.revocation.filter.max-ttl:1h}")
+    private Duration maxTtl;
+
+    @Value("${gateway.jwt.revocation.filter.rebuild-interval:30m}")
+    private Duration rebuildInterval;
+
+    private volatile boolean subscribed;
+
+    private volatile boolean seeded;
+
+    public RevokedTokenRegistry(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+                                TokenValidationCache validationCache,
+                                MeterRegistry meterRegistry) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.validationCache = validationCache;
+
+        Gauge.builder("gateway.revocation.entries", this, RevokedTokenRegistry::size)
+                .description("Revoked JTIs held in gateway memory")
+                .register(meterRegistry);
+        Gauge.builder("gateway.revocation.filter.memory", this,
+                        registry -> registry.filter != null ? registry.filter.memoryBytes() : 0)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("gateway.revocation.filter.expected-fpp", this,
+                        registry -> registry.filter != null ? registry.filter.expectedFalsePositiveRate() : 0)
+                .description("False positive probability estimated from the filter fill ratio")
+                .register(meterRegistry);
+        Gauge.builder("gateway.revocation.filter.observed-fpp", this, RevokedTokenRegistry::observedFalsePositiveRate)
+                .description("Share of non-revoked lookups that hit the filter and needed a Redis confirmation")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (isFilterMode()) {
+            filter = newFilter();
+            logger.info("Revoked token near-cache using a Bloom filter sized for {} entries per {} bucket at {} false positive rate",
+                    expectedInsertionsPerBucket, bucketDuration, falsePositiveRate);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("Revoked token near-cache disabled, every blacklist check goes to Redis");
+            return;
+        }
+
+        // Subscribe before seeding so a revocation published during the SCAN is not lost.
+        // Deferred because creating the listener container connects right away and must not fail startup
+        subscriptions.add(Mono.defer(() -> reactiveRedisTemplate.listenToChannelLater(channel))
+                .flatMapMany(messages -> {
+                    subscribed = true;
+                    logger.info("Subscribed to revocation channel: {}", channel);
+                    seed();
+                    return messages;
+                })
+                .doOnNext(message -> onRevocation(message.getMessage()))
+                // A completed subscription (container or connection closed) reconnects with the same backoff as a failure
+                .concatWith(Mono.error(() -> new IllegalStateException("subscription completed")))
+                .doOnError(e -> markOutOfSync("Revocation channel subscription failed: " + e.getMessage()))
+                .retryWhen(RECONNECT)
+                .subscribe());
+
+        subscriptions.add(Flux.interval(sweepInterval)
+                .subscribe(tick -> sweepExpired()));
+
+        if (isFilterMode()) {
+            // Rebuilding drops bits of entries that were deleted from Redis and re-adds keys capped at the max TTL
+            subscriptions.add(Flux.interval(rebuildInterval)
+                    .filter(tick -> subscribed)
+                    .subscribe(tick -> seed()));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+        seeding.dispose();
+    }
+
+    /**
+     * True when the local set reflects the Redis blacklist and a miss can be trusted.
+     */
+    public boolean isAuthoritative() {
+        return subscribed && seeded;
+    }
+
+    public RevocationStatus lookup(String jti) {
+        if (isFilterMode()) {
+            if (!isAuthoritative()) {
+                return RevocationStatus.UNKNOWN;
+            }
+            filterLookups.incrementAndGet();
+            return filter.mightContain(jti) ? RevocationStatus.POSSIBLY_REVOKED : RevocationStatus.NOT_REVOKED;
+        }
+
+        // A local hit is always final; a local miss only counts while the set is in sync with Redis
+        if (isRevoked(jti)) {
+            return RevocationStatus.REVOKED;
+        }
+        return isAuthoritative() ? RevocationStatus.NOT_REVOKED : RevocationStatus.UNKNOWN;
+    }
+
+    /**
+     * Record the Redis answer for a {@link RevocationStatus#POSSIBLY_REVOKED} lookup.
+     */
+    public void recordConfirmation(boolean revoked) {
+        if (revoked) {
+            filterConfirmedRevoked.incrementAndGet();
+        } else {
+            filterFalsePositives.incrementAndGet();
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        Long expiresAt = revokedJtis.get(jti);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt <= System.currentTimeMillis()) {
+            revokedJtis.remove(jti, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    public void markRevoked(String jti, long expiresAtMillis) {
+        if (isFilterMode()) {
+            // Read the rebuild first: seed() publishes the new filter before clearing it, so if the rebuild is already
+            // gone the filter read below is the new one, and otherwise the entry also lands in the filter being built
+            RevocationBloomFilter next = rebuilding;
+            filter.put(jti, expiresAtMillis);
+            if (next != null) {
+                next.put(jti, expiresAtMillis);
+            }
+        } else {
+            revokedJtis.put(jti, expiresAtMillis);
+        }
+        validationCache.invalidateJti(jti);
+    }
+
+    /**
+     * Record a revocation made by this gateway and broadcast it to the other gateway instances.
+     */
+    public Mono<Long> publishRevocation(String jti, long expiresAtMillis) {
+        markRevoked(jti, expiresAtMillis);
+
+        Map<String, Object> revocation = new HashMap<>();
+        revocation.put("jti", jti);
+        revocation.put("expiresAt", expiresAtMillis);
+        return reactiveRedisTemplate.convertAndSend(channel, revocation);
+    }
+
+    public long size() {
+        return isFilterMode() ? filter.approximateEntries() : revokedJtis.size();
+    }
+
+    private void seed() {
+        // In filter mode the scan fills a fresh filter that replaces the live one once complete
+        RevocationBloomFilter target = isFilterMode() ? newFilter() : null;
+        rebuilding = target;
+        if (!isFilterMode()) {
+            seeded = false;
+        }
+        seeding.update(reactiveRedisTemplate.scan(ScanOptions.scanOptions().match(BLACKLIST_PREFIX + "*").count(1000).build())
+                .flatMap(key -> reactiveRedisTemplate.getExpire(key)
+                        .defaultIfEmpty(Duration.ZERO)
+                        .map(ttl -> Map.entry(key.substring(BLACKLIST_PREFIX.length()), expiresAt(ttl))), 16)
+                .doOnNext(entry -> {
+                    if (target != null) {
+                        target.put(entry.getKey(), entry.getValue());
+                    } else {
+                        revokedJtis.merge(entry.getKey(), entry.getValue(), Math::max);
+                    }
+                })
+                .count()
+                .doOnError(e -> logger.warn("Revoked token near-cache seeding failed: {}", e.getMessage()))
+                .retryWhen(RECONNECT)
+                .subscribe(count -> {
+                    if (target != null) {
+                        filter = target;
+                        rebuilding = null;
+                    }
+                    seeded = true;
+                    logger.info("Revoked token near-cache seeded with {} entries", count);
+                }));
+    }
+
+    private void onRevocation(Object message) {
+        if (!(message instanceof Map<?, ?> revocation) || !(revocation.get("jti") instanceof String jti)) {
+            logger.warn("Ignoring malformed revocation message: {}", message);
+            return;
+        }
+        Object expiresAt = revocation.get("expiresAt");
+        markRevoked(jti, expiresAt instanceof Number number ? number.longValue() : NO_EXPIRY);
+        logger.debug("Revocation received for JTI: {}", jti);
+    }
+
+    private void sweepExpired() {
+        if (isFilterMode()) {
+            filter.dropExpiredGenerations();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        revokedJtis.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    private double observedFalsePositiveRate() {
+        // Lookups for tokens that turned out not to be revoked, of which the false positives needed a Redis call
+        long notRevoked = filterLookups.get() - filterConfirmedRevoked.get();
+        return notRevoked > 0 ? (double) filterFalsePositives.get() / notRevoked : 0;
+    }
+
+    private boolean isFilterMode() {
+        return "bloom".equalsIgnoreCase(mode);
+    }
+
+    private RevocationBloomFilter newFilter() {
+        return new RevocationBloomFilter(expectedInsertionsPerBucket, falsePositiveRate, bucketDuration, maxTtl);
+    }
+
+    private void markOutOfSync(String reason) {
+        subscribed = false;
+        seeded = false;
+        rebuilding = null;
+        logger.warn("{}, falling back to Redis blacklist lookups", reason);
+    }
+
+    public enum RevocationStatus {
+        REVOKED,
+        NOT_REVOKED,
+        POSSIBLY_REVOKED,
+        UNKNOWN
+    }
+
+    private static long expiresAt(Duration ttl) {
+        // Keys without a TTL report a zero or negative duration and stay until explicitly purged
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return NO_EXPIRY;
+        }
+        return System.currentTimeMillis() + ttl.toMillis();
+    }
+}
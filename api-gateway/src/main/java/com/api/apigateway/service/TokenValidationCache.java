@@ -0,0 +1,111 @@
+package com.api.apigateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Bounded cache of successful validation results keyed by a SHA-256 digest of the raw token.
+ * Entries never outlive the token's exp claim, so a hit can safely skip signature verification.
+ */
+@Component
+public class TokenValidationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenValidationCache.class);
+
+    private final Cache<String, JwtValidationService.JWTValidationResult> cache;
+
+    public TokenValidationCache(@Value("${gateway.jwt.cache.max-size:10000}") long maxSize,
+                                @Value("${gateway.jwt.cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(ttl))
+                .build();
+        logger.info("Token validation cache configured with max size {} and TTL {}", maxSize, ttl);
+    }
+
+    public JwtValidationService.JWTValidationResult get(String token) {
+        return cache.getIfPresent(digest(token));
+    }
+
+    /**
+     * Cache a result. Only valid results that carry an unexpired exp claim are stored.
+     */
+    public void put(String token, JwtValidationService.JWTValidationResult result) {
+        if (result == null || !result.isValid() || result.getClaimsSet() == null) {
+            return;
+        }
+        Date expiry = result.getClaimsSet().getExpirationTime();
+        if (expiry == null || expiry.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        cache.put(digest(token), result);
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(digest(token));
+    }
+
+    /**
+     * Drop every cached result for the given JTI. Revocations are rare, so a scan is acceptable here.
+     */
+    public void invalidateJti(String jti) {
+        if (jti == null) {
+            return;
+        }
+        cache.asMap().values().removeIf(result -> jti.equals(result.getClaimsSet().getJWTID()));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class TokenExpiry implements Expiry<String, JwtValidationService.JWTValidationResult> {
+
+        private final long maxTtlNanos;
+
+        private TokenExpiry(Duration ttl) {
+            this.maxTtlNanos = Objects.requireNonNull(ttl).toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, JwtValidationService.JWTValidationResult value, long currentTime) {
+            long untilExpiry = value.getClaimsSet().getExpirationTime().getTime() - System.currentTimeMillis();
+            return Math.max(0, Math.min(maxTtlNanos, Duration.ofMillis(untilExpiry).toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtValidationService.JWTValidationResult value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtValidationService.JWTValidationResult value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.api.apigateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class PublicPathMatcherTest {
+
+    private final PublicPathMatcher matcher = new PublicPathMatcher(new String[]{"/public", "/auth/**", "/actuator/health/"});
+
+    @Test
+    void matchesWholeSegmentsOnly() {
+        assertThat(matcher.isPublic("/public")).isTrue();
+        assertThat(matcher.isPublic("/public/")).isTrue();
+        assertThat(matcher.isPublic("/public/docs/index.html")).isTrue();
+        assertThat(matcher.isPublic("/publicity")).isFalse();
+        assertThat(matcher.isPublic("/pub")).isFalse();
+    }
+
+    @Test
+    void normalizesWildcardsAndTrailingSlashes() {
+        assertThat(matcher.getPrefixes()).containsExactly("/public", "/auth", "/actuator/health");
+        assertThat(matcher.isPublic("/auth/login")).isTrue();
+        assertThat(matcher.isPublic("/authorize")).isFalse();
+        assertThat(matcher.isPublic("/actuator/health")).isTrue();
+        assertThat(matcher.isPublic("/actuator/healthz")).isFalse();
+        assertThat(matcher.isPublic("/actuator/metrics")).isFalse();
+    }
+
+    @Test
+    void rejectsEverythingElse() {
+        assertThat(matcher.isPublic("/")).isFalse();
+        assertThat(matcher.isPublic("")).isFalse();
+        assertThat(matcher.isPublic("/api/user/public")).isFalse();
+    }
+
+    @Test
+    void rootMakesEveryPathPublic() {
+        PublicPathMatcher everything = new PublicPathMatcher(new String[]{"/"});
+
+        assertThat(everything.isPublic("/")).isTrue();
+        assertThat(everything.isPublic("/api/admin/users")).isTrue();
+    }
+
+    @Test
+    void rejectsRelativePrefixes() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new PublicPathMatcher(new String[]{"public"}));
+    }
+}
@@ -0,0 +1,108 @@
+package com.api.apigateway.loadbalancer;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PeakEwmaLoadBalancerTest {
+
+    private static final String SERVICE = "user-service";
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+
+    private final UpstreamInstanceStats instanceStats = new UpstreamInstanceStats(circuitBreakerRegistry,
+            new SimpleMeterRegistry(), Duration.ofSeconds(10), "upstreamInstance");
+
+    private final ServiceInstance fast = new DefaultServiceInstance("fast", SERVICE, "localhost", 8081, false);
+
+    private final ServiceInstance slow = new DefaultServiceInstance("slow", SERVICE, "localhost", 8082, false);
+
+    @Test
+    void prefersTheCheaperInstance() throws InterruptedException {
+        UpstreamInstanceStats.Call call = instanceStats.start(slow);
+        Thread.sleep(20);
+        call.finish(true, null);
+        PeakEwmaLoadBalancer loadBalancer = loadBalancer(fast, slow);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose(loadBalancer)).isEqualTo(fast);
+        }
+    }
+
+    @Test
+    void weighsLatencyByCallsInFlight() throws InterruptedException {
+        UpstreamInstanceStats.Call slowCall = instanceStats.start(slow);
+        UpstreamInstanceStats.Call fastCall = instanceStats.start(fast);
+        Thread.sleep(20);
+        slowCall.finish(true, null);
+        fastCall.finish(true, null);
+        for (int i = 0; i < 3; i++) {
+            instanceStats.start(fast);
+        }
+
+        assertThat(choose(loadBalancer(fast, slow))).isEqualTo(slow);
+    }
+
+    @Test
+    void skipsEjectedInstances() {
+        circuitBreakerRegistry.circuitBreaker(SERVICE + "@localhost:8081").transitionToOpenState();
+        PeakEwmaLoadBalancer loadBalancer = loadBalancer(fast, slow);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose(loadBalancer)).isEqualTo(slow);
+        }
+    }
+
+    @Test
+    void choosesAmongAllWhenEveryInstanceIsEjected() {
+        circuitBreakerRegistry.circuitBreaker(SERVICE + "@localhost:8081").transitionToOpenState();
+        circuitBreakerRegistry.circuitBreaker(SERVICE + "@localhost:8082").transitionToOpenState();
+
+        assertThat(choose(loadBalancer(fast, slow))).isIn(fast, slow);
+    }
+
+    @Test
+    void answersEmptyWithoutInstances() {
+        Response<ServiceInstance> response = loadBalancer().choose(new DefaultRequest<>()).block();
+
+        assertThat(response.hasServer()).isFalse();
+    }
+
+    private ServiceInstance choose(PeakEwmaLoadBalancer loadBalancer) {
+        Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+        assertThat(response.hasServer()).isTrue();
+        return response.getServer();
+    }
+
+    @SuppressWarnings("unchecked")
+    private PeakEwmaLoadBalancer loadBalancer(ServiceInstance... instances) {
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(List.of(instances));
+            }
+        };
+        ObjectProvider<ServiceInstanceListSupplier> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(supplier);
+        return new PeakEwmaLoadBalancer(provider, SERVICE, instanceStats);
+    }
+}
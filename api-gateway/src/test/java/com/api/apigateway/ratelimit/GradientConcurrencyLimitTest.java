@@ -0,0 +1,106 @@
+package com.api.apigateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class GradientConcurrencyLimitTest {
+
+    private static final long BASELINE = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void rejectsCallsOverTheLimit() {
+        GradientConcurrencyLimit limit = limit(2);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+        assertThat(limit.inFlight()).isEqualTo(2);
+
+        limit.onIgnored();
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileLatencyStaysAtTheBaseline() {
+        GradientConcurrencyLimit limit = limit(10);
+
+        saturate(limit, BASELINE, 50);
+
+        assertThat(limit.limit()).isGreaterThan(10);
+    }
+
+    @Test
+    void shrinksWhenLatencyClimbs() {
+        GradientConcurrencyLimit limit = limit(20);
+        saturate(limit, BASELINE, 20);
+        int settled = limit.limit();
+
+        saturate(limit, BASELINE * 10, 1);
+
+        assertThat(limit.limit()).isLessThan(settled);
+        assertThat(limit.limit()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void adoptsASustainedLatencyAsTheNewBaseline() {
+        GradientConcurrencyLimit limit = limit(20);
+        saturate(limit, BASELINE, 20);
+
+        saturate(limit, BASELINE * 10, 50);
+
+        assertThat(limit.longRttNanos()).isGreaterThan(BASELINE * 9);
+        assertThat(limit.limit()).isEqualTo(100);
+    }
+
+    @Test
+    void backsOffOnFailuresDownToTheMinimum() {
+        GradientConcurrencyLimit limit = limit(20);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+            limit.onDropped();
+        }
+
+        assertThat(limit.limit()).isEqualTo(2);
+        assertThat(limit.inFlight()).isZero();
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        GradientConcurrencyLimit limit = limit(10);
+
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire();
+            limit.onSuccess(BASELINE);
+        }
+
+        assertThat(limit.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void validatesTheBounds() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new GradientConcurrencyLimit(10, 0, 100, 1.5, 0.2, 100, 4, 0.9));
+        assertThatIllegalArgumentException().isThrownBy(() -> new GradientConcurrencyLimit(10, 20, 10, 1.5, 0.2, 100, 4, 0.9));
+    }
+
+    private static GradientConcurrencyLimit limit(int initialLimit) {
+        return new GradientConcurrencyLimit(initialLimit, 2, 100, 1.5, 0.2, 100, 4, 0.9);
+    }
+
+    // Fills the limit and completes every call with the given latency, for the given number of rounds
+    private static void saturate(GradientConcurrencyLimit limit, long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limit.onSuccess(rttNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.api.apigateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class LocalRateLimiterTest {
+
+    private static final String ROUTE = "user-service";
+
+    private final QuotaTiers quotaTiers = new QuotaTiers(new String[]{"ROLE_ADMIN=5"});
+
+    @Test
+    void admitsTheBurstThenRejects() {
+        LocalRateLimiter limiter = limiter(1, 5);
+        String key = quotaTiers.key(QuotaTiers.DEFAULT_TIER, "alice");
+
+        for (int i = 4; i >= 0; i--) {
+            RateLimiter.Response response = limiter.isAllowed(ROUTE, key).block();
+            assertThat(response.isAllowed()).isTrue();
+            assertThat(response.getHeaders()).containsEntry(RedisRateLimiter.REMAINING_HEADER, String.valueOf(i));
+        }
+
+        RateLimiter.Response rejected = limiter.isAllowed(ROUTE, key).block();
+        assertThat(rejected.isAllowed()).isFalse();
+        assertThat(rejected.getHeaders()).containsEntry(RedisRateLimiter.REMAINING_HEADER, "0");
+    }
+
+    @Test
+    void refillsAtTheReplenishRate() throws InterruptedException {
+        LocalRateLimiter limiter = limiter(50, 2);
+        String key = quotaTiers.key(QuotaTiers.DEFAULT_TIER, "alice");
+        assertThat(limiter.isAllowed(ROUTE, key).block().isAllowed()).isTrue();
+        assertThat(limiter.isAllowed(ROUTE, key).block().isAllowed()).isTrue();
+        assertThat(limiter.isAllowed(ROUTE, key).block().isAllowed()).isFalse();
+
+        // One token every 20ms
+        Thread.sleep(60);
+
+        assertThat(limiter.isAllowed(ROUTE, key).block().isAllowed()).isTrue();
+    }
+
+    @Test
+    void keepsSeparateBucketsPerKeyAndRoute() {
+        LocalRateLimiter limiter = limiter(1, 1);
+        String alice = quotaTiers.key(QuotaTiers.DEFAULT_TIER, "alice");
+        String bob = quotaTiers.key(QuotaTiers.DEFAULT_TIER, "bob");
+        assertThat(limiter.isAllowed(ROUTE, alice).block().isAllowed()).isTrue();
+        assertThat(limiter.isAllowed(ROUTE, alice).block().isAllowed()).isFalse();
+
+        assertThat(limiter.isAllowed(ROUTE, bob).block().isAllowed()).isTrue();
+        assertThat(limiter.isAllowed("admin-service", alice).block().isAllowed()).isTrue();
+    }
+
+    @Test
+    void scalesTheQuotaByTier() {
+        LocalRateLimiter limiter = limiter(1, 2);
+        String admin = quotaTiers.key("ROLE_ADMIN", "root");
+
+        RateLimiter.Response first = limiter.isAllowed(ROUTE, admin).block();
+        assertThat(first.getHeaders())
+                .containsEntry(RedisRateLimiter.BURST_CAPACITY_HEADER, "10")
+                .containsEntry(RedisRateLimiter.REPLENISH_RATE_HEADER, "5")
+                .containsEntry(LocalRateLimiter.TIER_HEADER, "ROLE_ADMIN");
+
+        int allowed = 1;
+        while (limiter.isAllowed(ROUTE, admin).block().isAllowed()) {
+            allowed++;
+        }
+        assertThat(allowed).isEqualTo(10);
+    }
+
+    @Test
+    void chargesRequestedTokens() {
+        LocalRateLimiter limiter = limiter(1, 5);
+        limiter.setDefaultConfig(new LocalRateLimiter.Config().setReplenishRate(1).setBurstCapacity(5).setRequestedTokens(2));
+        String key = quotaTiers.key(QuotaTiers.DEFAULT_TIER, "alice");
+
+        assertThat(limiter.isAllowed(ROUTE, key).block().isAllowed()).isTrue();
+        assertThat(limiter.isAllowed(ROUTE, key).block().isAllowed()).isTrue();
+        assertThat(limiter.isAllowed(ROUTE, key).block().isAllowed()).isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private LocalRateLimiter limiter(int replenishRate, long burstCapacity) {
+        LocalRateLimiter limiter = new LocalRateLimiter(mock(ConfigurationService.class),
+                mock(ReactiveRedisTemplate.class), quotaTiers, new SimpleMeterRegistry(),
+                1_000, Duration.ofMinutes(1), false, Duration.ofSeconds(1));
+        limiter.setDefaultConfig(new LocalRateLimiter.Config().setReplenishRate(replenishRate).setBurstCapacity(burstCapacity));
+        return limiter;
+    }
+}
@@ -0,0 +1,96 @@
+package com.api.apigateway.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.filter.FilterDefinition;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class BatchRouteResolverTest {
+
+    private final RateLimiter<?> localRateLimiter = mock(RateLimiter.class);
+
+    private final RateLimiter<?> defaultRateLimiter = mock(RateLimiter.class);
+
+    private final BatchRouteResolver resolver = resolver(Set.of("user-service", "admin-service"));
+
+    @Test
+    void resolvesThroughTheRouteDefinition() {
+        BatchRouteResolver.Resolved resolved = resolver.resolve("/api/user/profile?fields=name");
+
+        assertThat(resolved.routeId()).isEqualTo("user-service");
+        assertThat(resolved.uri()).isEqualTo(URI.create("lb://user-service/user/profile?fields=name"));
+        assertThat(resolved.circuitBreaker()).isEqualTo("userCircuitBreaker");
+        assertThat(resolved.rateLimiter()).isSameAs(localRateLimiter);
+    }
+
+    @Test
+    void fallsBackToTheDefaultRateLimiter() {
+        BatchRouteResolver.Resolved resolved = resolver.resolve("/api/admin/users");
+
+        assertThat(resolved.uri()).isEqualTo(URI.create("http://localhost:8082/admin/users"));
+        assertThat(resolved.circuitBreaker()).isNull();
+        assertThat(resolved.rateLimiter()).isSameAs(defaultRateLimiter);
+    }
+
+    @Test
+    void normalizesDotSegmentsBeforeMatching() {
+        BatchRouteResolver.Resolved resolved = resolver.resolve("/api/user/../admin/users");
+
+        assertThat(resolved.routeId()).isEqualTo("admin-service");
+        assertThat(resolver.resolve("/api/user/../../internal")).isNull();
+    }
+
+    @Test
+    void rejectsPathsOutsideTheBatchableRoutes() {
+        assertThat(resolver.resolve("/auth/login")).isNull();
+        assertThat(resolver.resolve("/api/other/x")).isNull();
+        assertThat(resolver.resolve("http://evil.example/api/user/profile")).isNull();
+        assertThat(resolver.resolve("//evil.example/api/user/profile")).isNull();
+        assertThat(resolver.resolve("api/user/profile")).isNull();
+        assertThat(resolver.resolve("/api/user/%zz")).isNull();
+    }
+
+    @Test
+    void onlyBatchesTheListedRoutes() {
+        BatchRouteResolver userOnly = resolver(Set.of("user-service"));
+
+        assertThat(userOnly.resolve("/api/user/profile")).isNotNull();
+        assertThat(userOnly.resolve("/api/admin/users")).isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private BatchRouteResolver resolver(Set<String> routeIds) {
+        RouteDefinition user = new RouteDefinition("user-service=lb://user-service,Path=/api/user/**");
+        FilterDefinition rateLimiter = new FilterDefinition("RequestRateLimiter");
+        rateLimiter.setArgs(Map.of("rate-limiter", "#{@localRateLimiter}"));
+        user.setFilters(List.of(new FilterDefinition("StripPrefix=1"),
+                new FilterDefinition("CircuitBreaker=userCircuitBreaker"), rateLimiter));
+
+        RouteDefinition admin = new RouteDefinition("admin-service=http://localhost:8082,Path=/api/admin/**");
+        admin.setFilters(List.of(new FilterDefinition("StripPrefix=1"), new FilterDefinition("RequestRateLimiter")));
+
+        RouteDefinition auth = new RouteDefinition("auth-service=http://localhost:9000,Path=/auth/**");
+
+        GatewayProperties gatewayProperties = new GatewayProperties();
+        gatewayProperties.setRoutes(List.of(user, admin, auth));
+
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("localRateLimiter", localRateLimiter);
+        ObjectProvider<RateLimiter<?>> defaultProvider = mock(ObjectProvider.class);
+        doReturn(defaultRateLimiter).when(defaultProvider).getIfUnique();
+
+        return new BatchRouteResolver(gatewayProperties, beanFactory, defaultProvider, routeIds);
+    }
+}
@@ -0,0 +1,83 @@
+package com.api.apigateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorResponseCatalogueTest {
+
+    private final ErrorResponseCatalogue catalogue = new ErrorResponseCatalogue();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void rendersTheStandardFields() throws IOException {
+        JsonNode body = parse(catalogue.forStatus(HttpStatus.UNAUTHORIZED, "Missing JWT token"));
+
+        assertThat(body.get("error").asText()).isEqualTo("Unauthorized");
+        assertThat(body.get("message").asText()).isEqualTo("Missing JWT token");
+        assertThat(body.get("status").asInt()).isEqualTo(401);
+        assertThat(body.get("timestamp").asText()).isNotEmpty();
+    }
+
+    @Test
+    void escapesMessages() throws IOException {
+        String message = "Token validation failed: \"kid\" \\ unknown\n\t<script>\u0001 é";
+
+        JsonNode body = parse(catalogue.forMessage(HttpStatus.UNAUTHORIZED, message));
+
+        assertThat(body.get("message").asText()).isEqualTo(message);
+        assertThat(body.size()).isEqualTo(4);
+    }
+
+    @Test
+    void rendersDefinedFields() throws IOException {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("error", "Service Unavailable");
+        fields.put("retryable", true);
+        fields.put("status", 503);
+
+        JsonNode body = parse(catalogue.define(fields));
+
+        assertThat(body.get("retryable").isBoolean()).isTrue();
+        assertThat(body.get("status").isInt()).isTrue();
+    }
+
+    @Test
+    void sharesFixedMessagesOnly() {
+        ErrorResponseCatalogue.ErrorBody fixed = catalogue.forStatus(HttpStatus.UNAUTHORIZED, JwtValidationService.REVOKED_TOKEN);
+
+        assertThat(catalogue.forStatus(HttpStatus.UNAUTHORIZED, JwtValidationService.REVOKED_TOKEN)).isSameAs(fixed);
+        assertThat(catalogue.forMessage(HttpStatus.UNAUTHORIZED, JwtValidationService.REVOKED_TOKEN)).isSameAs(fixed);
+        assertThat(catalogue.forStatus(HttpStatus.FORBIDDEN, JwtValidationService.REVOKED_TOKEN)).isNotSameAs(fixed);
+
+        String dynamic = "Token validation failed: Unexpected character at position 7";
+        assertThat(catalogue.forMessage(HttpStatus.UNAUTHORIZED, dynamic))
+                .isNotSameAs(catalogue.forMessage(HttpStatus.UNAUTHORIZED, dynamic));
+    }
+
+    @Test
+    void writesTheBodyAsJson() {
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        ErrorResponseCatalogue.ErrorBody body = catalogue.forStatus(HttpStatus.SERVICE_UNAVAILABLE, "Service unavailable");
+
+        catalogue.write(response, HttpStatus.SERVICE_UNAVAILABLE, body).block();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getBodyAsString().block()).contains("\"message\":\"Service unavailable\"");
+    }
+
+    private JsonNode parse(ErrorResponseCatalogue.ErrorBody body) throws IOException {
+        return objectMapper.readTree(body.bytes());
+    }
+}
@@ -0,0 +1,84 @@
+package com.api.apigateway.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevocationBloomFilterTest {
+
+    @Test
+    void containsEveryRevokedJti() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(1_000, 0.01, Duration.ofMinutes(5), Duration.ofHours(1));
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(10).toMillis();
+        for (int i = 0; i < 1_000; i++) {
+            filter.put("revoked-" + i, expiresAt);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filter.mightContain("revoked-" + i)).isTrue();
+        }
+        assertThat(filter.approximateEntries()).isEqualTo(1_000);
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheConfiguredRate() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(10_000, 0.01, Duration.ofHours(1), Duration.ofHours(1));
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(30).toMillis();
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("revoked-" + i, expiresAt);
+        }
+
+        int falsePositives = 0;
+        int lookups = 100_000;
+        for (int i = 0; i < lookups; i++) {
+            if (filter.mightContain("active-" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / lookups;
+        assertThat(rate).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.001, 0.02);
+    }
+
+    @Test
+    void ignoresExpiredTokens() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(100, 0.01, Duration.ofMinutes(1), Duration.ofHours(1));
+
+        filter.put("expired", System.currentTimeMillis() - 1);
+
+        assertThat(filter.mightContain("expired")).isFalse();
+        assertThat(filter.generationCount()).isZero();
+    }
+
+    @Test
+    void dropsGenerationsOnceTheirWindowHasPassed() throws InterruptedException {
+        RevocationBloomFilter filter = new RevocationBloomFilter(100, 0.01, Duration.ofMillis(100), Duration.ofHours(1));
+        long now = System.currentTimeMillis();
+        filter.put("short-lived", now + 50);
+        filter.put("long-lived", now + Duration.ofMinutes(10).toMillis());
+        assertThat(filter.generationCount()).isEqualTo(2);
+        assertThat(filter.mightContain("short-lived")).isTrue();
+
+        // Past the short-lived token's window, not just its expiry
+        Thread.sleep(250);
+        filter.dropExpiredGenerations();
+
+        assertThat(filter.generationCount()).isEqualTo(1);
+        assertThat(filter.mightContain("short-lived")).isFalse();
+        assertThat(filter.mightContain("long-lived")).isTrue();
+    }
+
+    @Test
+    void capsExpiriesAtTheMaximumTtl() {
+        RevocationBloomFilter filter = new RevocationBloomFilter(100, 0.01, Duration.ofMinutes(1), Duration.ofMinutes(5));
+        long now = System.currentTimeMillis();
+
+        filter.put("a", now + Duration.ofDays(1).toMillis());
+        filter.put("b", now + Duration.ofDays(2).toMillis());
+
+        // Both land in the generation at the TTL cap instead of one each far in the future
+        assertThat(filter.generationCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,83 @@
+package com.api.apigateway.service;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenValidationCacheTest {
+
+    @Test
+    void returnsCachedValidResults() {
+        TokenValidationCache cache = new TokenValidationCache(100, Duration.ofMinutes(5));
+        JwtValidationService.JWTValidationResult result = valid("jti-1", Duration.ofMinutes(10));
+
+        cache.put("token", result);
+
+        assertThat(cache.get("token")).isSameAs(result);
+        assertThat(cache.get("other-token")).isNull();
+    }
+
+    @Test
+    void expiresAtTheTokensExpiryWhenThatComesFirst() throws InterruptedException {
+        TokenValidationCache cache = new TokenValidationCache(100, Duration.ofMinutes(5));
+        cache.put("token", valid("jti-1", Duration.ofMillis(300)));
+        assertThat(cache.get("token")).isNotNull();
+
+        Thread.sleep(500);
+
+        assertThat(cache.get("token")).isNull();
+    }
+
+    @Test
+    void expiresAtTheTtlWhenThatComesFirst() throws InterruptedException {
+        TokenValidationCache cache = new TokenValidationCache(100, Duration.ofMillis(200));
+        cache.put("token", valid("jti-1", Duration.ofHours(1)));
+        assertThat(cache.get("token")).isNotNull();
+
+        Thread.sleep(400);
+
+        assertThat(cache.get("token")).isNull();
+    }
+
+    @Test
+    void skipsInvalidAndExpiredResults() {
+        TokenValidationCache cache = new TokenValidationCache(100, Duration.ofMinutes(5));
+
+        cache.put("invalid", new JwtValidationService.JWTValidationResult(false, JwtValidationService.INVALID_TOKEN, null, null));
+        cache.put("expired", valid("jti-1", Duration.ofMinutes(-1)));
+        cache.put("no-exp", new JwtValidationService.JWTValidationResult(true, "ok",
+                new JWTClaimsSet.Builder().subject("alice").build(), List.of()));
+
+        assertThat(cache.get("invalid")).isNull();
+        assertThat(cache.get("expired")).isNull();
+        assertThat(cache.get("no-exp")).isNull();
+    }
+
+    @Test
+    void invalidatesEveryTokenWithARevokedJti() {
+        TokenValidationCache cache = new TokenValidationCache(100, Duration.ofMinutes(5));
+        cache.put("token-a", valid("revoked", Duration.ofMinutes(10)));
+        cache.put("token-b", valid("revoked", Duration.ofMinutes(10)));
+        cache.put("token-c", valid("kept", Duration.ofMinutes(10)));
+
+        cache.invalidateJti("revoked");
+
+        assertThat(cache.get("token-a")).isNull();
+        assertThat(cache.get("token-b")).isNull();
+        assertThat(cache.get("token-c")).isNotNull();
+    }
+
+    private static JwtValidationService.JWTValidationResult valid(String jti, Duration expiresIn) {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("alice")
+                .jwtID(jti)
+                .expirationTime(new Date(System.currentTimeMillis() + expiresIn.toMillis()))
+                .build();
+        return new JwtValidationService.JWTValidationResult(true, "ok", claims, List.of("ROLE_USER"));
+    }
+}
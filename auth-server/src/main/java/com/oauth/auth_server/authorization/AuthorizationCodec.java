@@ -0,0 +1,193 @@
+package com.oauth.auth_server.authorization;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.security.jackson2.SecurityJackson2Modules;
+import org.springframework.security.oauth2.core.AbstractOAuth2Token;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.jackson2.OAuth2AuthorizationServerJackson2Module;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Binary (Smile) encoding of authorizations and consents for the Redis stores.
+ * <p>
+ * The layout follows the columns of Spring Authorization Server's JDBC schema: plain fields for ids, scopes and
+ * token values, with attributes and token metadata written through the Spring Security Jackson modules so that
+ * principals and authorization requests survive the round trip and only allowlisted types are read back.
+ */
+@Component
+public class AuthorizationCodec {
+
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {
+    };
+
+    private static final TypeReference<List<String>> STRINGS = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    public AuthorizationCodec() {
+        ClassLoader classLoader = AuthorizationCodec.class.getClassLoader();
+        this.objectMapper = new ObjectMapper(new SmileFactory());
+        this.objectMapper.registerModules(SecurityJackson2Modules.getModules(classLoader));
+        this.objectMapper.registerModule(new OAuth2AuthorizationServerJackson2Module());
+    }
+
+    public byte[] encode(OAuth2Authorization authorization) {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("id", authorization.getId());
+        document.put("registeredClientId", authorization.getRegisteredClientId());
+        document.put("principalName", authorization.getPrincipalName());
+        document.put("grantType", authorization.getAuthorizationGrantType().getValue());
+        document.put("scopes", new ArrayList<>(authorization.getAuthorizedScopes()));
+        document.put("attributes", normalize(authorization.getAttributes()));
+
+        putToken(document, "authorizationCode", authorization.getToken(OAuth2AuthorizationCode.class));
+        putToken(document, "refreshToken", authorization.getToken(OAuth2RefreshToken.class));
+        putToken(document, "oidcIdToken", authorization.getToken(OidcIdToken.class));
+        putToken(document, "userCode", authorization.getToken(OAuth2UserCode.class));
+        putToken(document, "deviceCode", authorization.getToken(OAuth2DeviceCode.class));
+        OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization.getAccessToken();
+        putToken(document, "accessToken", accessToken);
+        if (accessToken != null) {
+            document.put("accessTokenType", accessToken.getToken().getTokenType().getValue());
+            document.put("accessTokenScopes", new ArrayList<>(accessToken.getToken().getScopes()));
+        }
+        return write(document);
+    }
+
+    /**
+     * Rebuilds an authorization, looking up the client it was issued to by id.
+     */
+    @SuppressWarnings("unchecked")
+    public OAuth2Authorization decode(byte[] bytes, Function<String, RegisteredClient> registeredClients) {
+        Map<String, Object> document = read(bytes, MAP);
+        String registeredClientId = (String) document.get("registeredClientId");
+        RegisteredClient registeredClient = registeredClients.apply(registeredClientId);
+        if (registeredClient == null) {
+            throw new IllegalArgumentException("The RegisteredClient with id '" + registeredClientId + "' was not found");
+        }
+        OAuth2Authorization.Builder builder = OAuth2Authorization.withRegisteredClient(registeredClient)
+                .id((String) document.get("id"))
+                .principalName((String) document.get("principalName"))
+                .authorizationGrantType(new AuthorizationGrantType((String) document.get("grantType")))
+                .authorizedScopes(new HashSet<>((List<String>) document.get("scopes")))
+                .attributes(attributes -> attributes.putAll((Map<String, Object>) document.get("attributes")));
+
+        readToken(document, "authorizationCode", builder,
+                (token, issuedAt, expiresAt) -> new OAuth2AuthorizationCode(token.value(), issuedAt, expiresAt));
+        readToken(document, "refreshToken", builder,
+                (token, issuedAt, expiresAt) -> new OAuth2RefreshToken(token.value(), issuedAt, expiresAt));
+        readToken(document, "oidcIdToken", builder, (token, issuedAt, expiresAt) -> new OidcIdToken(token.value(),
+                issuedAt, expiresAt, (Map<String, Object>) token.metadata().get(OAuth2Authorization.Token.CLAIMS_METADATA_NAME)));
+        readToken(document, "userCode", builder,
+                (token, issuedAt, expiresAt) -> new OAuth2UserCode(token.value(), issuedAt, expiresAt));
+        readToken(document, "deviceCode", builder,
+                (token, issuedAt, expiresAt) -> new OAuth2DeviceCode(token.value(), issuedAt, expiresAt));
+        readToken(document, "accessToken", builder, (token, issuedAt, expiresAt) -> {
+            OAuth2AccessToken.TokenType tokenType = OAuth2AccessToken.TokenType.BEARER.getValue()
+                    .equalsIgnoreCase((String) document.get("accessTokenType")) ? OAuth2AccessToken.TokenType.BEARER : null;
+            return new OAuth2AccessToken(tokenType, token.value(), issuedAt, expiresAt,
+                    new HashSet<>((List<String>) document.get("accessTokenScopes")));
+        });
+        return builder.build();
+    }
+
+    public byte[] encodeAuthorities(List<String> authorities) {
+        return write(new ArrayList<>(authorities));
+    }
+
+    public List<String> decodeAuthorities(byte[] bytes) {
+        return read(bytes, STRINGS);
+    }
+
+    private void putToken(Map<String, Object> document, String name, OAuth2Authorization.Token<? extends AbstractOAuth2Token> token) {
+        if (token == null) {
+            return;
+        }
+        Map<String, Object> encoded = new LinkedHashMap<>();
+        encoded.put("value", token.getToken().getTokenValue());
+        encoded.put("issuedAt", token.getToken().getIssuedAt());
+        encoded.put("expiresAt", token.getToken().getExpiresAt());
+        encoded.put("metadata", normalize(token.getMetadata()));
+        document.put(name, encoded);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends AbstractOAuth2Token> void readToken(Map<String, Object> document, String name,
+                                                         OAuth2Authorization.Builder builder, TokenFactory<T> factory) {
+        Map<String, Object> encoded = (Map<String, Object>) document.get(name);
+        if (encoded == null) {
+            return;
+        }
+        EncodedToken token = new EncodedToken((String) encoded.get("value"), (Map<String, Object>) encoded.get("metadata"));
+        T value = factory.create(token, (Instant) encoded.get("issuedAt"), (Instant) encoded.get("expiresAt"));
+        Consumer<Map<String, Object>> metadata = m -> m.putAll(token.metadata());
+        builder.token(value, metadata);
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Couldn't encode " + value.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private <T> T read(byte[] bytes, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Couldn't decode stored authorization data: " + e.getMessage(), e);
+        }
+    }
+
+    // Claims may hold List.of(...) and similar JDK collections the Jackson allowlist would refuse to read back
+    private static Object normalize(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, entry) -> copy.put(key, normalize(entry)));
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(entry -> copy.add(normalize(entry)));
+            return copy;
+        }
+        if (value instanceof Set<?> set) {
+            Set<Object> copy = new HashSet<>();
+            set.forEach(entry -> copy.add(normalize(entry)));
+            return copy;
+        }
+        return value;
+    }
+
+    private record EncodedToken(String value, Map<String, Object> metadata) {
+    }
+
+    @FunctionalInterface
+    private interface TokenFactory<T extends AbstractOAuth2Token> {
+
+        T create(EncodedToken token, Instant issuedAt, Instant expiresAt);
+    }
+}
@@ -0,0 +1,83 @@
+package com.oauth.auth_server.authorization;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationConsent;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationConsentService;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * Keeps the scopes each user has consented to per client in Redis, shared by all auth-server replicas.
+ * <p>
+ * A consent is one binary list of authority names under {@code <prefix><client id>:<principal name>}. Consents
+ * have no expiry of their own, like the JDBC store they last until the user or client revokes them.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.authorization.store", havingValue = "redis")
+public class RedisOAuth2AuthorizationConsentService implements OAuth2AuthorizationConsentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisOAuth2AuthorizationConsentService.class);
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+
+    private final AuthorizationCodec codec;
+
+    private final String keyPrefix;
+
+    public RedisOAuth2AuthorizationConsentService(RedisTemplate<String, byte[]> redisTemplate,
+                                                  AuthorizationCodec codec,
+                                                  @Value("${auth.authorization.consent-redis-key-prefix:auth:consent:}") String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.codec = codec;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public void save(OAuth2AuthorizationConsent authorizationConsent) {
+        Assert.notNull(authorizationConsent, "authorizationConsent cannot be null");
+        List<String> authorities = authorizationConsent.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        redisTemplate.opsForValue().set(key(authorizationConsent.getRegisteredClientId(), authorizationConsent.getPrincipalName()),
+                codec.encodeAuthorities(authorities));
+    }
+
+    @Override
+    public void remove(OAuth2AuthorizationConsent authorizationConsent) {
+        Assert.notNull(authorizationConsent, "authorizationConsent cannot be null");
+        redisTemplate.delete(key(authorizationConsent.getRegisteredClientId(), authorizationConsent.getPrincipalName()));
+    }
+
+    @Override
+    public OAuth2AuthorizationConsent findById(String registeredClientId, String principalName) {
+        Assert.hasText(registeredClientId, "registeredClientId cannot be empty");
+        Assert.hasText(principalName, "principalName cannot be empty");
+        byte[] value = redisTemplate.opsForValue().get(key(registeredClientId, principalName));
+        if (value == null) {
+            return null;
+        }
+        try {
+            OAuth2AuthorizationConsent.Builder builder = OAuth2AuthorizationConsent.withId(registeredClientId, principalName);
+            for (String authority : codec.decodeAuthorities(value)) {
+                builder.authority(new SimpleGrantedAuthority(authority));
+            }
+            return builder.build();
+        } catch (IllegalArgumentException e) {
+            // Also thrown by build() for a consent without authorities, which is as good as none
+            logger.warn("Couldn't read consent of {} for client {}: {}", principalName, registeredClientId, e.getMessage());
+            return null;
+        }
+    }
+
+    private String key(String registeredClientId, String principalName) {
+        return keyPrefix + registeredClientId + ":" + principalName;
+    }
+}
@@ -0,0 +1,252 @@
+package com.oauth.auth_server.authorization;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.security.oauth2.core.AbstractOAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keeps authorizations (codes, access, refresh and ID tokens, pending consent state) in Redis so any auth-server
+ * replica can continue a flow another one started.
+ * <p>
+ * Each authorization is one binary value under {@code <prefix>id:<id>}. Every token value and the state parameter
+ * also get an index key, {@code <prefix>token:<sha-256 of the value>}, holding the authorization id, so lookups by
+ * token are two GETs regardless of how many authorizations exist. Keys expire with the authorization's longest-lived
+ * token, which the client's {@code TokenSettings} determine; an authorization without tokens yet lives as long as
+ * an authorization code would.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.authorization.store", havingValue = "redis")
+public class RedisOAuth2AuthorizationService implements OAuth2AuthorizationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisOAuth2AuthorizationService.class);
+
+    private static final OAuth2TokenType ID_TOKEN = new OAuth2TokenType(OidcParameterNames.ID_TOKEN);
+
+    private static final OAuth2TokenType USER_CODE = new OAuth2TokenType(OAuth2ParameterNames.USER_CODE);
+
+    private static final OAuth2TokenType DEVICE_CODE = new OAuth2TokenType(OAuth2ParameterNames.DEVICE_CODE);
+
+    private static final List<Class<? extends AbstractOAuth2Token>> TOKEN_TYPES = List.of(OAuth2AuthorizationCode.class,
+            OAuth2AccessToken.class, OAuth2RefreshToken.class, OidcIdToken.class, OAuth2UserCode.class, OAuth2DeviceCode.class);
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+
+    private final RegisteredClientRepository registeredClientRepository;
+
+    private final AuthorizationCodec codec;
+
+    private final String keyPrefix;
+
+    public RedisOAuth2AuthorizationService(RedisTemplate<String, byte[]> redisTemplate,
+                                           RegisteredClientRepository registeredClientRepository,
+                                           AuthorizationCodec codec,
+                                           @Value("${auth.authorization.redis-key-prefix:auth:authorization:}") String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.registeredClientRepository = registeredClientRepository;
+        this.codec = codec;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        RegisteredClient registeredClient = registeredClientRepository.findById(authorization.getRegisteredClientId());
+        Assert.notNull(registeredClient, "The RegisteredClient with id '" + authorization.getRegisteredClientId() + "' was not found");
+
+        // Index keys of tokens the new version no longer has (a rotated refresh token, a consumed state) must go
+        OAuth2Authorization previous = load(authorization.getId());
+        Set<String> indexKeys = indexKeys(authorization);
+        List<String> staleIndexKeys = new ArrayList<>();
+        if (previous != null) {
+            for (String key : indexKeys(previous)) {
+                if (!indexKeys.contains(key)) {
+                    staleIndexKeys.add(key);
+                }
+            }
+        }
+
+        byte[] value = codec.encode(authorization);
+        byte[] id = authorization.getId().getBytes(StandardCharsets.UTF_8);
+        Duration ttl = timeToLive(authorization, registeredClient);
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) throws DataAccessException {
+                // operations is redisTemplate itself; the session binds its connection, so the typed template
+                // can be used directly and all commands still go through the one MULTI
+                redisTemplate.multi();
+                redisTemplate.opsForValue().set(authorizationKey(authorization.getId()), value, ttl);
+                for (String key : indexKeys) {
+                    redisTemplate.opsForValue().set(key, id, ttl);
+                }
+                if (!staleIndexKeys.isEmpty()) {
+                    redisTemplate.delete(staleIndexKeys);
+                }
+                return redisTemplate.exec();
+            }
+        });
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        List<String> keys = new ArrayList<>(indexKeys(authorization));
+        keys.add(authorizationKey(authorization.getId()));
+        // The stored version may carry tokens this instance no longer has
+        OAuth2Authorization stored = load(authorization.getId());
+        if (stored != null) {
+            keys.addAll(indexKeys(stored));
+        }
+        redisTemplate.delete(keys);
+    }
+
+    @Override
+    public OAuth2Authorization findById(String id) {
+        Assert.hasText(id, "id cannot be empty");
+        return load(id);
+    }
+
+    @Override
+    public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        byte[] id = redisTemplate.opsForValue().get(indexKey(token));
+        if (id == null) {
+            return null;
+        }
+        OAuth2Authorization authorization = load(new String(id, StandardCharsets.UTF_8));
+        // Index keys are shared by all token types, the authorization must hold the value as the requested type
+        return authorization != null && hasToken(authorization, token, tokenType) ? authorization : null;
+    }
+
+    private OAuth2Authorization load(String id) {
+        byte[] value = redisTemplate.opsForValue().get(authorizationKey(id));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return codec.decode(value, registeredClientRepository::findById);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Couldn't read authorization {}: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    private Duration timeToLive(OAuth2Authorization authorization, RegisteredClient registeredClient) {
+        Instant expiresAt = null;
+        for (Class<? extends AbstractOAuth2Token> type : TOKEN_TYPES) {
+            OAuth2Authorization.Token<? extends AbstractOAuth2Token> token = authorization.getToken(type);
+            if (token != null && token.getToken().getExpiresAt() != null
+                    && (expiresAt == null || token.getToken().getExpiresAt().isAfter(expiresAt))) {
+                expiresAt = token.getToken().getExpiresAt();
+            }
+        }
+        Duration ttl = expiresAt != null
+                ? Duration.between(Instant.now(), expiresAt)
+                : registeredClient.getTokenSettings().getAuthorizationCodeTimeToLive();
+        // Redis needs a positive expiry, an authorization past its last token is dropped almost at once
+        return ttl.compareTo(Duration.ofSeconds(1)) < 0 ? Duration.ofSeconds(1) : ttl;
+    }
+
+    private Set<String> indexKeys(OAuth2Authorization authorization) {
+        Set<String> keys = new HashSet<>();
+        String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+        if (state != null) {
+            keys.add(indexKey(state));
+        }
+        for (Class<? extends AbstractOAuth2Token> type : TOKEN_TYPES) {
+            OAuth2Authorization.Token<? extends AbstractOAuth2Token> token = authorization.getToken(type);
+            if (token != null) {
+                keys.add(indexKey(token.getToken().getTokenValue()));
+            }
+        }
+        return keys;
+    }
+
+    private static boolean hasToken(OAuth2Authorization authorization, String token, OAuth2TokenType tokenType) {
+        if (tokenType == null) {
+            return matchesState(authorization, token)
+                    || matches(authorization.getToken(OAuth2AuthorizationCode.class), token)
+                    || matches(authorization.getToken(OAuth2AccessToken.class), token)
+                    || matches(authorization.getToken(OidcIdToken.class), token)
+                    || matches(authorization.getToken(OAuth2RefreshToken.class), token)
+                    || matches(authorization.getToken(OAuth2UserCode.class), token)
+                    || matches(authorization.getToken(OAuth2DeviceCode.class), token);
+        }
+        if (OAuth2ParameterNames.STATE.equals(tokenType.getValue())) {
+            return matchesState(authorization, token);
+        }
+        if (OAuth2ParameterNames.CODE.equals(tokenType.getValue())) {
+            return matches(authorization.getToken(OAuth2AuthorizationCode.class), token);
+        }
+        if (OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+            return matches(authorization.getToken(OAuth2AccessToken.class), token);
+        }
+        if (ID_TOKEN.equals(tokenType)) {
+            return matches(authorization.getToken(OidcIdToken.class), token);
+        }
+        if (OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
+            return matches(authorization.getToken(OAuth2RefreshToken.class), token);
+        }
+        if (USER_CODE.equals(tokenType)) {
+            return matches(authorization.getToken(OAuth2UserCode.class), token);
+        }
+        if (DEVICE_CODE.equals(tokenType)) {
+            return matches(authorization.getToken(OAuth2DeviceCode.class), token);
+        }
+        return false;
+    }
+
+    private static boolean matchesState(OAuth2Authorization authorization, String token) {
+        return token.equals(authorization.getAttribute(OAuth2ParameterNames.STATE));
+    }
+
+    private static boolean matches(OAuth2Authorization.Token<? extends AbstractOAuth2Token> token, String value) {
+        return token != null && Objects.equals(token.getToken().getTokenValue(), value);
+    }
+
+    private String authorizationKey(String id) {
+        return keyPrefix + "id:" + id;
+    }
+
+    // Hashed so keys stay short for long JWTs and token values never appear in key listings
+    private String indexKey(String tokenValue) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(tokenValue.getBytes(StandardCharsets.UTF_8));
+            return keyPrefix + "token:" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
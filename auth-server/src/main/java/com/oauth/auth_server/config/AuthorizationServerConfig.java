@@ -1,10 +1,10 @@
 package com.oauth.auth_server.config;
 
 import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.oauth.auth_server.keys.SigningKeyManager;
+import com.oauth.auth_server.password.PasswordHashingFailureHandler;
 import com.oauth.auth_server.service.UserService;
 
 import org.slf4j.Logger;
@@ -14,12 +14,17 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.ObjectPostProcessor;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.authorization.config.annotation.web.configuration.OAuth2AuthorizationServerConfiguration;
 import org.springframework.security.oauth2.server.authorization.config.annotation.web.configurers.OAuth2AuthorizationServerConfigurer;
 import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
@@ -30,14 +35,11 @@ import org.springframework.security.oauth2.server.authorization.token.OAuth2Toke
 import org.springframework.security.oauth2.server.resource.web.BearerTokenAuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -45,15 +47,17 @@ import java.util.stream.Collectors;
 
 @Configuration
 @EnableWebSecurity
+@EnableScheduling
 public class AuthorizationServerConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthorizationServerConfig.class);
 
-    private static final KeyPair STATIC_KEY_PAIR = generateRsaKey();
-
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SigningKeyManager signingKeyManager;
+
     @Bean
     @Order(Ordered.HIGHEST_PRECEDENCE)
     public SecurityFilterChain authorizationServerSecurityFilterChain(HttpSecurity http) throws Exception {
@@ -70,7 +74,13 @@ public class AuthorizationServerConfig {
                         .jwt(Customizer.withDefaults())
                         .authenticationEntryPoint(new BearerTokenAuthenticationEntryPoint()))
         .getConfigurer(OAuth2AuthorizationServerConfigurer.class)
-            .oidc(Customizer.withDefaults());
+            .oidc(oidc -> oidc
+                    .providerConfigurationEndpoint(endpoint -> endpoint
+                            .providerConfigurationCustomizer(config -> config
+                                    .idTokenSigningAlgorithms(algorithms -> {
+                                        algorithms.clear();
+                                        algorithms.addAll(signingKeyManager.getPublishedAlgorithms());
+                                    }))));
 
         http
                 .exceptionHandling(exceptions -> exceptions
@@ -95,7 +105,15 @@ public class AuthorizationServerConfig {
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/connect/logout").permitAll()
                         .anyRequest().permitAll())
-                .formLogin(Customizer.withDefaults())
+                .formLogin(form -> form
+                        // Replaces the failure handler on the filter only, so the login page still shows errors
+                        .withObjectPostProcessor(new ObjectPostProcessor<UsernamePasswordAuthenticationFilter>() {
+                            @Override
+                            public <O extends UsernamePasswordAuthenticationFilter> O postProcess(O filter) {
+                                filter.setAuthenticationFailureHandler(new PasswordHashingFailureHandler("/login?error"));
+                                return filter;
+                            }
+                        }))
                 .logout(logout -> logout
                         .logoutUrl("/logout") // The endpoint for logout
                         .logoutSuccessUrl("http://localhost:3000") // Redirect URL after successful logout
@@ -122,6 +140,12 @@ public class AuthorizationServerConfig {
     @Bean
     public OAuth2TokenCustomizer<JwtEncodingContext> tokenCustomizer() {
         return context -> {
+            // Sign every token with the algorithm of the active key, the encoder selects the key by it
+            SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.from(signingKeyManager.getSigningAlgorithm().getName());
+            if (signatureAlgorithm != null) {
+                context.getJwsHeader().algorithm(signatureAlgorithm);
+            }
+
             if (context.getTokenType().getValue().equals("access_token")) {
                 context.getClaims().claims(claims -> {
                     logger.info("Customizing JWT token for principal: {}", context.getPrincipal().getName());
@@ -189,15 +213,14 @@ public class AuthorizationServerConfig {
 
     @Bean
     public JWKSource<SecurityContext> jwkSource() {
-        RSAPublicKey publicKey = (RSAPublicKey) STATIC_KEY_PAIR.getPublic();
-        RSAPrivateKey privateKey = (RSAPrivateKey) STATIC_KEY_PAIR.getPrivate();
+        // Publishes the pending, current and previous keys so validation caches stay warm across rotation
+        return (jwkSelector, context) -> jwkSelector.select(signingKeyManager.getPublishedKeys());
+    }
 
-        RSAKey rsaKey = new RSAKey.Builder(publicKey)
-                .privateKey(privateKey)
-                .keyID("OAuth2-demo-fixed-kid") // keep kid fixed
-                .build();
-        JWKSet jwkSet = new JWKSet(rsaKey);
-        return new ImmutableJWKSet<>(jwkSet);
+    @Bean
+    public JwtEncoder jwtEncoder() {
+        // Signing only ever sees the active key, otherwise the encoder would find several candidates
+        return new NimbusJwtEncoder((jwkSelector, context) -> jwkSelector.select(new JWKSet(signingKeyManager.getSigningKey())));
     }
 
     @Bean
@@ -212,7 +235,7 @@ public class AuthorizationServerConfig {
         return TokenSettings.builder()
                 .accessTokenTimeToLive(Duration.ofMinutes(15))
                 .refreshTokenTimeToLive(Duration.ofDays(1))
-                .idTokenSignatureAlgorithm(org.springframework.security.oauth2.jose.jws.SignatureAlgorithm.RS256)
+                .idTokenSignatureAlgorithm(SignatureAlgorithm.from(signingKeyManager.getSigningAlgorithm().getName()))
                 .build();
     }
 
@@ -224,15 +247,4 @@ public class AuthorizationServerConfig {
                 .build();
     }
 
-    private static KeyPair generateRsaKey() {
-        KeyPair keyPair;
-        try {
-            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-            keyPairGenerator.initialize(2048);
-            keyPair = keyPairGenerator.generateKeyPair();
-        } catch (Exception ex) {
-            throw new IllegalStateException(ex);
-        }
-        return keyPair;
-    }
-}
\ No newline at end of file
+}
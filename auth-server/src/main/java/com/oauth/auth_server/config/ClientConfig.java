@@ -1,5 +1,8 @@
 package com.oauth.auth_server.config;
 
+import com.oauth.auth_server.repository.ClientRepository;
+import com.oauth.auth_server.service.JpaRegisteredClientRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
@@ -7,18 +10,21 @@ import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
 import org.springframework.security.oauth2.core.oidc.OidcScopes;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
-import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
 import org.springframework.security.oauth2.server.authorization.settings.ClientSettings;
 import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
 
 import java.time.Duration;
-import java.util.UUID;
 
 @Configuration
 public class ClientConfig {
 
+    /**
+     * Clients are persisted through JPA and served from a near-cache; react-client is registered on first start.
+     */
     @Bean
-    public RegisteredClientRepository registeredClientRepository() {
+    public RegisteredClientRepository registeredClientRepository(ClientRepository clientRepository,
+                                                                 @Value("${auth.clients.cache.max-size:10000}") long maxSize,
+                                                                 @Value("${auth.clients.cache.ttl:5m}") Duration ttl) {
         // Server-side app
         // RegisteredClient reactClient = RegisteredClient.withId(UUID.randomUUID().toString())
         //         .clientId("react-client")
@@ -43,7 +49,8 @@ public class ClientConfig {
         //                 .build())
         //         .build();
 
-        RegisteredClient reactClient = RegisteredClient.withId(UUID.randomUUID().toString())
+        // Stable id: stored authorizations refer to it, so every replica and restart must agree on it
+        RegisteredClient reactClient = RegisteredClient.withId("react-client")
         .clientId("react-client")
         .clientAuthenticationMethod(ClientAuthenticationMethod.NONE) // <-- For SPA/PKCE
         .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
@@ -65,7 +72,11 @@ public class ClientConfig {
                 .build())
         .build();
 
-        return new InMemoryRegisteredClientRepository(reactClient);
+        JpaRegisteredClientRepository repository = new JpaRegisteredClientRepository(clientRepository, maxSize, ttl);
+        if (repository.findByClientId(reactClient.getClientId()) == null) {
+            repository.save(reactClient);
+        }
+        return repository;
 
 
     }
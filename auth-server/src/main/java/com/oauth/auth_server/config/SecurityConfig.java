@@ -1,16 +1,50 @@
 package com.oauth.auth_server.config;
 
+import com.oauth.auth_server.password.BoundedPasswordEncoder;
+import com.oauth.auth_server.password.PasswordEncoderCalibrator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.authentication.configuration.GlobalAuthenticationConfigurerAdapter;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 @Configuration
 public class SecurityConfig {
 
+    /**
+     * BCrypt or Argon2 with a cost calibrated at startup, run on a bounded hashing pool sized to the cores unless
+     * {@code auth.password-hashing.threads} is set.
+     */
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                                  @Value("${auth.password-hashing.threads:0}") int threads,
+                                                  @Value("${auth.password-hashing.queue-capacity:64}") int queueCapacity,
+                                                  @Value("${auth.password-hashing.algorithm:bcrypt}") String algorithm,
+                                                  @Value("${auth.password-hashing.target-verify-time:100ms}") Duration targetVerifyTime,
+                                                  @Value("${auth.password-hashing.cost:0}") int cost,
+                                                  @Value("${auth.password-hashing.argon2-memory-kib:19456}") int argon2MemoryKiB) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        PasswordEncoder encoder = PasswordEncoderCalibrator.create(algorithm, targetVerifyTime, cost, argon2MemoryKiB);
+        return new BoundedPasswordEncoder(encoder, poolSize, queueCapacity, meterRegistry);
+    }
+
+    /**
+     * Keeps the password on the form login success event so PasswordUpgradeService can rehash outdated hashes off
+     * the request thread. Only the global authentication manager keeps it: each filter chain's own manager, which
+     * delegates to it, still erases the credentials once the event has been handled.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public GlobalAuthenticationConfigurerAdapter keepCredentialsForSuccessEvent() {
+        return new GlobalAuthenticationConfigurerAdapter() {
+            @Override
+            public void init(AuthenticationManagerBuilder auth) {
+                auth.eraseCredentials(false);
+            }
+        };
     }
 
 } 
\ No newline at end of file
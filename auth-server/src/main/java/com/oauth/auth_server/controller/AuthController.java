@@ -1,15 +1,21 @@
 package com.oauth.auth_server.controller;
 
 import com.oauth.auth_server.model.User;
+import com.oauth.auth_server.password.BoundedPasswordEncoder;
+import com.oauth.auth_server.password.PasswordHashingRejectedException;
+import com.oauth.auth_server.service.PasswordUpgradeService;
 import com.oauth.auth_server.service.UserService;
 import com.oauth.auth_server.service.TokenBlacklistService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -20,74 +26,104 @@ public class AuthController {
     private UserService userService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private BoundedPasswordEncoder passwordEncoder;
 
     @Autowired
     private TokenBlacklistService tokenBlacklistService;
 
+    @Autowired
+    private PasswordUpgradeService passwordUpgradeService;
+
+    // Hashing runs on the password hashing pool; the request thread is released until the response is ready
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@RequestBody User user) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@RequestBody User user) {
         try {
             // Check if user already exists
             if (userService.findByUsername(user.getUsername()) != null) {
                 Map<String, String> response = new HashMap<>();
                 response.put("error", "Username already exists");
-                return ResponseEntity.badRequest().body(response);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(response));
             }
 
             // Encode password
-            user.setPassword(passwordEncoder.encode(user.getPassword()));
-            
-            // Set default role as USER
-            user.setRole("USER");
-            
-            User savedUser = userService.saveUser(user);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "User registered successfully");
-            response.put("userId", savedUser.getId());
-            response.put("username", savedUser.getUsername());
-            response.put("role", savedUser.getRole());
-            
-            return ResponseEntity.ok(response);
+            return passwordEncoder.encodeAsync(user.getPassword())
+                    .<ResponseEntity<?>>thenApply(encodedPassword -> {
+                        user.setPassword(encodedPassword);
+
+                        // Set default role as USER
+                        user.setRole("USER");
+
+                        User savedUser = userService.saveUser(user);
+
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("message", "User registered successfully");
+                        response.put("userId", savedUser.getId());
+                        response.put("username", savedUser.getUsername());
+                        response.put("role", savedUser.getRole());
+
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(e -> failure("Registration failed: ", e));
+        } catch (PasswordHashingRejectedException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
         } catch (Exception e) {
-            Map<String, String> response = new HashMap<>();
-            response.put("error", "Registration failed: " + e.getMessage());
-            return ResponseEntity.badRequest().body(response);
+            return CompletableFuture.completedFuture(failure("Registration failed: ", e));
         }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@RequestBody Map<String, String> loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> loginUser(@RequestBody Map<String, String> loginRequest) {
         try {
             String username = loginRequest.get("username");
             String password = loginRequest.get("password");
 
             User user = userService.findByUsername(username);
-            
-            if (user == null || !passwordEncoder.matches(password, user.getPassword())) {
-                Map<String, String> response = new HashMap<>();
-                response.put("error", "Invalid username or password");
-                return ResponseEntity.badRequest().body(response);
-            }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "Login successful");
-            response.put("userId", user.getId());
-            response.put("username", user.getUsername());
-            response.put("role", user.getRole());
-            response.put("email", user.getEmail());
-            response.put("firstName", user.getFirstName());
-            response.put("lastName", user.getLastName());
-            
-            return ResponseEntity.ok(response);
+            // Unknown users are checked against a dummy hash, so they take as long as a wrong password
+            return passwordEncoder.matchesAsync(password, user != null ? user.getPassword() : null)
+                    .<ResponseEntity<?>>thenApply(matches -> {
+                        if (!matches) {
+                            Map<String, String> response = new HashMap<>();
+                            response.put("error", "Invalid username or password");
+                            return ResponseEntity.badRequest().body(response);
+                        }
+
+                        passwordUpgradeService.upgradeIfOutdated(user, password);
+
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("message", "Login successful");
+                        response.put("userId", user.getId());
+                        response.put("username", user.getUsername());
+                        response.put("role", user.getRole());
+                        response.put("email", user.getEmail());
+                        response.put("firstName", user.getFirstName());
+                        response.put("lastName", user.getLastName());
+
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(e -> failure("Login failed: ", e));
+        } catch (PasswordHashingRejectedException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
         } catch (Exception e) {
-            Map<String, String> response = new HashMap<>();
-            response.put("error", "Login failed: " + e.getMessage());
-            return ResponseEntity.badRequest().body(response);
+            return CompletableFuture.completedFuture(failure("Login failed: ", e));
         }
     }
 
+    private static ResponseEntity<?> tooManyRequests() {
+        Map<String, String> response = new HashMap<>();
+        response.put("error", "Too many login attempts in progress, please retry shortly");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
+    private static ResponseEntity<?> failure(String message, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        Map<String, String> response = new HashMap<>();
+        response.put("error", message + cause.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
     @PostMapping("/logout")
     public ResponseEntity<?> logoutUser(@RequestBody Map<String, String> logoutRequest) {
         try {
@@ -1,7 +1,7 @@
 package com.oauth.auth_server.controller;
 
-import com.oauth.auth_server.model.User;
-import com.oauth.auth_server.repository.UserRepository;
+import com.oauth.auth_server.model.UserProfile;
+import com.oauth.auth_server.service.UserProfileCache;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,7 +21,7 @@ public class UserInfoController {
     private static final Logger logger = LoggerFactory.getLogger(UserInfoController.class);
     
     @Autowired
-    private UserRepository userRepository;
+    private UserProfileCache userProfileCache;
 
     // @GetMapping("/userinfo")
     // public User userInfo(@AuthenticationPrincipal UserDetails userDetails) {
@@ -46,28 +46,25 @@ public class UserInfoController {
         
         logger.info("Looking up user by username: {}", username);
         
-        // Try to find user by username first, then by subject
-        User user = null;
-        if (username != null) {
-            user = userRepository.findByUsername(username).orElse(null);
-            logger.info("User found by username '{}': {}", username, user != null);
-        }
+        // Try to find user by username first, then by subject; both are served from the profile cache
+        UserProfile user = userProfileCache.get(username);
+        logger.info("User found by username '{}': {}", username, user != null);
         
         // If not found by username, try by subject (which might be the username)
-        if (user == null && subject != null) {
+        if (user == null && subject != null && !subject.equals(username)) {
             logger.info("User not found by username, trying subject: {}", subject);
-            user = userRepository.findByUsername(subject).orElse(null);
+            user = userProfileCache.get(subject);
             logger.info("User found by subject '{}': {}", subject, user != null);
         }
         
         if (user != null) {
-            logger.info("Returning user info from database for user: {}", user.getUsername());
-            userInfo.put("sub", user.getId());
-            userInfo.put("username", user.getUsername());
-            userInfo.put("email", user.getEmail());
-            userInfo.put("firstName", user.getFirstName());
-            userInfo.put("lastName", user.getLastName());
-            userInfo.put("role", user.getRole());
+            logger.info("Returning user info from database for user: {}", user.username());
+            userInfo.put("sub", user.id());
+            userInfo.put("username", user.username());
+            userInfo.put("email", user.email());
+            userInfo.put("firstName", user.firstName());
+            userInfo.put("lastName", user.lastName());
+            userInfo.put("role", user.role());
         } else {
             logger.warn("User not found in database, returning JWT claims only");
             // Fallback to JWT claims if user not found in DB
@@ -0,0 +1,80 @@
+package com.oauth.auth_server.keys;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.text.ParseException;
+
+/**
+ * Keeps the signing keys in a local JWK set file, written atomically and readable by the owner only.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.signing-keys.store", havingValue = "file", matchIfMissing = true)
+public class FileSigningKeyStore implements SigningKeyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSigningKeyStore.class);
+
+    private final Path path;
+
+    public FileSigningKeyStore(@Value("${auth.signing-keys.file:./keys/signing-keys.json}") String path) {
+        this.path = Path.of(path);
+    }
+
+    @Override
+    public JWKSet load() throws IOException {
+        if (!Files.exists(path)) {
+            logger.info("No signing key file at {}", path.toAbsolutePath());
+            return new JWKSet();
+        }
+        try {
+            return JWKSet.parse(Files.readString(path, StandardCharsets.UTF_8));
+        } catch (ParseException e) {
+            throw new IOException("Invalid signing key file " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void save(JWKSet keys) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            restrictToOwner(temp);
+            Files.writeString(temp, keys.toString(false), StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.info("Saved {} signing keys to {}", keys.getKeys().size(), path.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized boolean saveIfAbsent(JWKSet keys) throws IOException {
+        if (Files.exists(path)) {
+            return false;
+        }
+        save(keys);
+        return true;
+    }
+
+    private void restrictToOwner(Path file) throws IOException {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            logger.debug("POSIX permissions not supported for {}", file);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.oauth.auth_server.keys;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Keeps the signing keys in Redis so every auth-server replica signs with the same keys. The JWK set holds the
+ * private keys, so it is stored encrypted with AES-GCM under {@code auth.signing-keys.redis-encryption-key},
+ * which every replica is given through its configuration rather than through Redis.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.signing-keys.store", havingValue = "redis")
+public class RedisSigningKeyStore implements SigningKeyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisSigningKeyStore.class);
+
+    // Marks an encrypted value; entries written before encryption are plain JWK set JSON
+    private static final String ENCRYPTED_PREFIX = "aes-gcm:";
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+
+    private static final int IV_BYTES = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final String key;
+
+    private final SecretKeySpec encryptionKey;
+
+    public RedisSigningKeyStore(RedisTemplate<String, Object> redisTemplate,
+                                @Value("${auth.signing-keys.redis-key:auth:signing-keys}") String key,
+                                @Value("${auth.signing-keys.redis-encryption-key:}") String encryptionKey) {
+        this.redisTemplate = redisTemplate;
+        this.key = key;
+        this.encryptionKey = aesKey(encryptionKey);
+    }
+
+    @Override
+    public JWKSet load() throws IOException {
+        try {
+            Object stored = redisTemplate.opsForValue().get(key);
+            if (!(stored instanceof String value)) {
+                return new JWKSet();
+            }
+            if (!value.startsWith(ENCRYPTED_PREFIX)) {
+                logger.warn("Signing keys under {} are stored unencrypted, they are encrypted at the next rotation", key);
+                return JWKSet.parse(value);
+            }
+            return JWKSet.parse(decrypt(value.substring(ENCRYPTED_PREFIX.length())));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IOException("Couldn't decrypt the signing keys stored under " + key
+                    + ", check auth.signing-keys.redis-encryption-key", e);
+        } catch (ParseException e) {
+            throw new IOException("Invalid signing keys stored under " + key + ": " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            throw new IOException("Couldn't load signing keys from Redis: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void save(JWKSet keys) throws IOException {
+        try {
+            redisTemplate.opsForValue().set(key, encrypt(keys));
+        } catch (RuntimeException e) {
+            throw new IOException("Couldn't save signing keys to Redis: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean saveIfAbsent(JWKSet keys) throws IOException {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, encrypt(keys)));
+        } catch (RuntimeException e) {
+            throw new IOException("Couldn't save signing keys to Redis: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean tryLockRotation(Duration ttl) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key + ":rotation-lock", "locked", ttl));
+    }
+
+    private String encrypt(JWKSet keys) throws IOException {
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+            // The Redis key is bound in, so a value copied under another key fails to decrypt
+            cipher.updateAAD(key.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = cipher.doFinal(keys.toString(false).getBytes(StandardCharsets.UTF_8));
+            return ENCRYPTED_PREFIX + Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array());
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Couldn't encrypt the signing keys: " + e.getMessage(), e);
+        }
+    }
+
+    private String decrypt(String value) throws GeneralSecurityException {
+        byte[] stored = Base64.getDecoder().decode(value);
+        if (stored.length <= IV_BYTES) {
+            throw new IllegalArgumentException("Encrypted value is too short");
+        }
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, stored, 0, IV_BYTES));
+        cipher.updateAAD(key.getBytes(StandardCharsets.UTF_8));
+        return new String(cipher.doFinal(stored, IV_BYTES, stored.length - IV_BYTES), StandardCharsets.UTF_8);
+    }
+
+    private static SecretKeySpec aesKey(String encoded) {
+        if (encoded == null || encoded.isBlank()) {
+            throw new IllegalStateException("auth.signing-keys.store=redis needs auth.signing-keys.redis-encryption-key, "
+                    + "a base64 AES key (e.g. openssl rand -base64 32) shared by every replica");
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(encoded.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("auth.signing-keys.redis-encryption-key is not valid base64", e);
+        }
+        if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
+            throw new IllegalStateException("auth.signing-keys.redis-encryption-key must decode to 16, 24 or 32 bytes, got "
+                    + bytes.length);
+        }
+        return new SecretKeySpec(bytes, "AES");
+    }
+}
@@ -0,0 +1,211 @@
+package com.oauth.auth_server.keys;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Loads the signing keys from the configured {@link SigningKeyStore} and rotates them on a schedule.
+ * <p>
+ * A new key is published as soon as it is created but only used for signing once the activation
+ * delay has passed, so gateways and other replicas already know it when the first token arrives.
+ * The previous keys stay published after rotation so tokens they signed keep validating.
+ */
+@Component
+public class SigningKeyManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyManager.class);
+
+    private final SigningKeyStore store;
+
+    @Value("${auth.signing-keys.rotation-interval:30d}")
+    private Duration rotationInterval;
+
+    @Value("${auth.signing-keys.activation-delay:1h}")
+    private Duration activationDelay;
+
+    @Value("${auth.signing-keys.retained-previous:2}")
+    private int retainedPrevious;
+
+    @Value("${auth.signing-keys.algorithm:RS256}")
+    private String algorithmName;
+
+    private JWSAlgorithm algorithm;
+
+    // Newest first
+    private volatile List<JWK> keys = List.of();
+
+    public SigningKeyManager(SigningKeyStore store) {
+        this.store = store;
+    }
+
+    @PostConstruct
+    public void init() {
+        algorithm = JWSAlgorithm.parse(algorithmName);
+        // Only families the Spring encoder and the resource servers can verify
+        if (!JWSAlgorithm.Family.RSA.contains(algorithm) && !JWSAlgorithm.Family.EC.contains(algorithm)) {
+            throw new IllegalStateException("Unsupported signing algorithm " + algorithmName + ", use an RSA (RS256, PS256) or EC (ES256, ES384, ES512) algorithm");
+        }
+
+        try {
+            keys = sortNewestFirst(store.load().getKeys());
+        } catch (Exception e) {
+            logger.error("Couldn't load signing keys, starting with a temporary key: {}", e.getMessage());
+        }
+
+        if (keys.isEmpty()) {
+            logger.info("No stored signing keys, generating the first one");
+            keys = List.of(generateKey());
+            storeFirstKey();
+        } else {
+            logger.info("Loaded {} signing keys, signing with kid {}", keys.size(), getSigningKey().getKeyID());
+        }
+    }
+
+    /**
+     * Every key that tokens may still be signed with, private parts included.
+     */
+    public JWKSet getPublishedKeys() {
+        return new JWKSet(keys);
+    }
+
+    /**
+     * The newest key that has passed its activation delay, or the only key on first boot.
+     */
+    public JWK getSigningKey() {
+        List<JWK> current = keys;
+        Instant activeBefore = Instant.now().minus(activationDelay);
+        for (JWK key : current) {
+            if (issuedAt(key).isBefore(activeBefore)) {
+                return key;
+            }
+        }
+        return current.get(current.size() - 1);
+    }
+
+    /**
+     * The algorithm of the active signing key. It lags the configured algorithm until a key for it activates.
+     */
+    public JWSAlgorithm getSigningAlgorithm() {
+        JWK key = getSigningKey();
+        return key.getAlgorithm() != null ? JWSAlgorithm.parse(key.getAlgorithm().getName()) : JWSAlgorithm.RS256;
+    }
+
+    /**
+     * Algorithms of every published key, for the OIDC discovery document.
+     */
+    public List<String> getPublishedAlgorithms() {
+        return keys.stream()
+                .map(key -> key.getAlgorithm() != null ? key.getAlgorithm().getName() : JWSAlgorithm.RS256.getName())
+                .distinct()
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.signing-keys.check-interval:PT10M}",
+               initialDelayString = "${auth.signing-keys.check-interval:PT10M}")
+    public synchronized void rotateIfDue() {
+        // Pick up keys rotated by another replica before deciding anything
+        try {
+            List<JWK> stored = sortNewestFirst(store.load().getKeys());
+            if (stored.isEmpty()) {
+                // The store was unavailable when we started, hand it the key we have been signing with
+                storeFirstKey();
+            } else {
+                keys = stored;
+            }
+        } catch (Exception e) {
+            logger.warn("Couldn't reload signing keys, keeping the current ones: {}", e.getMessage());
+        }
+
+        // A change of the configured algorithm rotates right away instead of waiting for the interval
+        JWK newestKey = keys.get(0);
+        boolean algorithmChanged = !algorithm.equals(newestKey.getAlgorithm());
+        if (!algorithmChanged && issuedAt(newestKey).plus(rotationInterval).isAfter(Instant.now())) {
+            return;
+        }
+        if (!store.tryLockRotation(activationDelay)) {
+            logger.debug("Another replica is rotating the signing keys");
+            return;
+        }
+
+        List<JWK> rotated = new ArrayList<>();
+        rotated.add(generateKey());
+        // Keep the key that is still signing until the new one activates, plus the configured previous keys
+        rotated.addAll(keys.subList(0, Math.min(keys.size(), retainedPrevious + 1)));
+        keys = List.copyOf(rotated);
+        persist();
+        logger.info("Rotated signing keys, new kid {} activates in {}", keys.get(0).getKeyID(), activationDelay);
+    }
+
+    private void storeFirstKey() {
+        try {
+            if (!store.saveIfAbsent(new JWKSet(keys))) {
+                // Another replica stored its first key concurrently, use that one so all replicas agree
+                List<JWK> stored = sortNewestFirst(store.load().getKeys());
+                if (!stored.isEmpty()) {
+                    keys = stored;
+                    logger.info("Adopted signing keys stored by another replica");
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Couldn't persist signing keys, retrying at the next rotation check: {}", e.getMessage());
+        }
+    }
+
+    private void persist() {
+        try {
+            store.save(new JWKSet(keys));
+        } catch (Exception e) {
+            logger.error("Couldn't persist signing keys, they will be lost on restart: {}", e.getMessage());
+        }
+    }
+
+    private JWK generateKey() {
+        try {
+            if (JWSAlgorithm.Family.EC.contains(algorithm)) {
+                return new ECKeyGenerator(Curve.forJWSAlgorithm(algorithm).iterator().next())
+                        .keyUse(KeyUse.SIGNATURE)
+                        .algorithm(algorithm)
+                        .keyID(UUID.randomUUID().toString())
+                        .issueTime(new Date())
+                        .generate();
+            }
+            return new RSAKeyGenerator(2048)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(algorithm)
+                    .keyID(UUID.randomUUID().toString())
+                    .issueTime(new Date())
+                    .generate();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static List<JWK> sortNewestFirst(List<JWK> jwks) {
+        return jwks.stream()
+                .sorted(Comparator.comparing(SigningKeyManager::issuedAt).reversed())
+                .toList();
+    }
+
+    private static Instant issuedAt(JWK key) {
+        return key.getIssueTime() != null ? key.getIssueTime().toInstant() : Instant.EPOCH;
+    }
+}
@@ -0,0 +1,34 @@
+package com.oauth.auth_server.keys;
+
+import com.nimbusds.jose.jwk.JWKSet;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Persistent storage for the authorization server signing keys, private parts included.
+ */
+public interface SigningKeyStore {
+
+    /**
+     * Load the stored keys, or an empty set if none have been stored yet.
+     */
+    JWKSet load() throws IOException;
+
+    /**
+     * Replace the stored keys.
+     */
+    void save(JWKSet keys) throws IOException;
+
+    /**
+     * Store the keys only if nothing is stored yet, returning false when another node got there first.
+     */
+    boolean saveIfAbsent(JWKSet keys) throws IOException;
+
+    /**
+     * Claim the right to rotate keys for the given time so replicas sharing a store don't rotate at once.
+     */
+    default boolean tryLockRotation(Duration ttl) {
+        return true;
+    }
+}
@@ -0,0 +1,9 @@
+package com.oauth.auth_server.model;
+
+/**
+ * Read-only view of a user, selected column by column so lookups skip entity hydration and the persistence context.
+ * Immutable, so one instance can be cached and shared between requests.
+ */
+public record UserProfile(Long id, String username, String password, String email, String role,
+                          String firstName, String lastName) {
+}
@@ -0,0 +1,142 @@
+package com.oauth.auth_server.password;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a small dedicated pool instead of on whichever request thread asked for it.
+ * <p>
+ * The pool has one thread per core by default and a bounded queue. Once the queue is full, new work is refused
+ * with {@link PasswordHashingRejectedException} rather than queued, so a login storm is turned away with 429s
+ * while the token and JWKS endpoints keep their threads. {@link #matchesAsync} and {@link #encodeAsync} hand the
+ * result back without holding the caller's thread. The blocking {@link PasswordEncoder} methods, used by form login,
+ * still wait for the result but are bounded by the same queue.
+ * <p>
+ * Meters: {@code auth.password.hash} times the hashing itself per operation, {@code auth.password.hash.queued}
+ * the wait for a thread, {@code auth.password.hash.queue} is the queue depth and
+ * {@code auth.password.hash.rejected} counts refused work.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    // Checked against when the user does not exist, so the response takes as long as a wrong password would
+    private final String dummyHash;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Timer queuedTimer;
+
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.dummyHash = delegate.encode("dummy-password-for-unknown-users");
+
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash").tag("operation", "matches").register(meterRegistry);
+        this.queuedTimer = Timer.builder("auth.password.hash.queued").register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.hash.rejected").register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+
+        logger.info("Password hashing pool started with {} threads and room for {} queued requests", threads, queueCapacity);
+    }
+
+    /**
+     * Hashes the password on the hashing pool.
+     *
+     * @throws PasswordHashingRejectedException if the pool's queue is full
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    /**
+     * Checks the password on the hashing pool. A null {@code encodedPassword}, as for an unknown user, is checked
+     * against a dummy hash of the same cost and never matches.
+     *
+     * @throws PasswordHashingRejectedException if the pool's queue is full
+     */
+    public CompletableFuture<Boolean> matchesAsync(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return submit(() -> {
+                delegate.matches(rawPassword, dummyHash);
+                return false;
+            }, matchesTimer);
+        }
+        return submit(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return await(encodeAsync(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(matchesAsync(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Stops the hashing threads; called by the container on shutdown.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work, Timer timer) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queuedTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer.record(work);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Too many password checks in progress", e);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.oauth.auth_server.password;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the password encoder, choosing its cost by timing hashes on this machine at startup.
+ * <p>
+ * The cost is the highest that keeps one verification within the target time, and never below the usual minimum
+ * (BCrypt strength 10, Argon2 with 19 MiB and 2 iterations). Hashes are stored with an {@code {id}} prefix so
+ * stored BCrypt and Argon2 hashes keep verifying whichever algorithm is configured. Unprefixed hashes from before
+ * are read as BCrypt. {@link PasswordEncoder#upgradeEncoding} reports any hash made with another algorithm or a
+ * lower cost, so it can be rehashed at the next successful login.
+ */
+public final class PasswordEncoderCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordEncoderCalibrator.class);
+
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+
+    private static final int MIN_ARGON2_ITERATIONS = 2;
+
+    private static final int MAX_ARGON2_ITERATIONS = 16;
+
+    private static final int ARGON2_SALT_LENGTH = 16;
+
+    private static final int ARGON2_HASH_LENGTH = 32;
+
+    private static final int ARGON2_PARALLELISM = 1;
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private PasswordEncoderCalibrator() {
+    }
+
+    /**
+     * Returns a delegating encoder that hashes with the given algorithm ({@code bcrypt} or {@code argon2}).
+     *
+     * @param cost BCrypt strength or Argon2 iterations to use, or 0 to measure the highest one within the target
+     * @param argon2MemoryKiB memory per Argon2 hash
+     */
+    public static PasswordEncoder create(String algorithm, Duration targetVerifyTime, int cost, int argon2MemoryKiB) {
+        PasswordEncoder encoder = switch (algorithm) {
+            case "bcrypt" -> new BCryptPasswordEncoder(cost > 0 ? cost : calibrateBCrypt(targetVerifyTime));
+            case "argon2" -> argon2(argon2MemoryKiB, cost > 0 ? cost : calibrateArgon2(targetVerifyTime, argon2MemoryKiB));
+            default -> throw new IllegalArgumentException("Unsupported password hashing algorithm: " + algorithm
+                    + " (expected bcrypt or argon2)");
+        };
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", "bcrypt".equals(algorithm) ? encoder : new BCryptPasswordEncoder());
+        encoders.put("argon2", "argon2".equals(algorithm) ? encoder : argon2(argon2MemoryKiB, MIN_ARGON2_ITERATIONS));
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(algorithm, encoders);
+        // BCryptPasswordEncoder verifies with the cost stored in the hash, whatever strength it was built with
+        delegating.setDefaultPasswordEncoderForMatches(encoders.get("bcrypt"));
+        return delegating;
+    }
+
+    // Each step doubles the work, so one measurement at the minimum is enough to find the step that fits
+    private static int calibrateBCrypt(Duration target) {
+        long nanos = verifyTime(new BCryptPasswordEncoder(MIN_BCRYPT_STRENGTH));
+        int strength = MIN_BCRYPT_STRENGTH;
+        while (strength < MAX_BCRYPT_STRENGTH && nanos * 2 <= target.toNanos()) {
+            nanos *= 2;
+            strength++;
+        }
+        logger.info("Using BCrypt strength {}, about {} ms per verification (target {} ms)",
+                strength, nanos / 1_000_000, target.toMillis());
+        return strength;
+    }
+
+    // Work grows linearly with the iterations
+    private static int calibrateArgon2(Duration target, int memoryKiB) {
+        long nanos = verifyTime(argon2(memoryKiB, MIN_ARGON2_ITERATIONS));
+        long perIteration = Math.max(1, nanos / MIN_ARGON2_ITERATIONS);
+        int iterations = (int) Math.max(MIN_ARGON2_ITERATIONS,
+                Math.min(MAX_ARGON2_ITERATIONS, target.toNanos() / perIteration));
+        logger.info("Using Argon2 with {} KiB and {} iterations, about {} ms per verification (target {} ms)",
+                memoryKiB, iterations, iterations * perIteration / 1_000_000, target.toMillis());
+        return iterations;
+    }
+
+    private static Argon2PasswordEncoder argon2(int memoryKiB, int iterations) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, ARGON2_PARALLELISM, memoryKiB, iterations);
+    }
+
+    // Fastest of a few runs after a warm-up, which is the least disturbed by whatever else starts up alongside
+    private static long verifyTime(PasswordEncoder encoder) {
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        encoder.matches(SAMPLE_PASSWORD, hash);
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE_PASSWORD, hash);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+}
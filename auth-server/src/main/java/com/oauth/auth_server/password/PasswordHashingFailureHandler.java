@@ -0,0 +1,33 @@
+package com.oauth.auth_server.password;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+
+import java.io.IOException;
+
+/**
+ * Form login failure handler that answers a full hashing pool with 429 and Retry-After, and any other failure by
+ * redirecting to the failure URL as usual.
+ */
+public class PasswordHashingFailureHandler extends SimpleUrlAuthenticationFailureHandler {
+
+    public PasswordHashingFailureHandler(String defaultFailureUrl) {
+        super(defaultFailureUrl);
+    }
+
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
+                                        AuthenticationException exception) throws IOException, ServletException {
+        if (exception instanceof PasswordHashingRejectedException) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many login attempts in progress, please retry shortly");
+            return;
+        }
+        super.onAuthenticationFailure(request, response, exception);
+    }
+}
@@ -0,0 +1,18 @@
+package com.oauth.auth_server.password;
+
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+
+/**
+ * Thrown when the password hashing pool is full. Answered with 429 so clients back off and retry.
+ * <p>
+ * An {@link InternalAuthenticationServiceException} so that during form login the authentication manager gives up
+ * at once instead of trying other providers, and the failure handler gets to see it.
+ */
+public class PasswordHashingRejectedException extends InternalAuthenticationServiceException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
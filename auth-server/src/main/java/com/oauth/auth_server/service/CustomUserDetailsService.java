@@ -1,7 +1,6 @@
 package com.oauth.auth_server.service;
 
-import com.oauth.auth_server.model.User;
-import com.oauth.auth_server.repository.UserRepository;
+import com.oauth.auth_server.model.UserProfile;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,17 +14,19 @@ import java.util.Collections;
 public class CustomUserDetailsService implements UserDetailsService {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserProfileCache userProfileCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        UserProfile user = userProfileCache.get(username);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
 
         return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole())))
+                .username(user.username())
+                .password(user.password())
+                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.role())))
                 .build();
     }
 } 
\ No newline at end of file
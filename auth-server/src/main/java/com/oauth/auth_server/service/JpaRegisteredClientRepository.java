@@ -0,0 +1,154 @@
+package com.oauth.auth_server.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oauth.auth_server.model.Client;
+import com.oauth.auth_server.repository.ClientRepository;
+import org.springframework.security.jackson2.SecurityJackson2Modules;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.jackson2.OAuth2AuthorizationServerJackson2Module;
+import org.springframework.security.oauth2.server.authorization.settings.ClientSettings;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Registered clients stored through JPA, read through a near-cache indexed by both id and client id.
+ * <p>
+ * The authorize and token endpoints look a client up on every call, so after the first lookup those calls are
+ * served from memory. Saving a client drops its cached entries on this instance; other instances pick up the
+ * change once their entries expire. Unknown ids are not cached, so made-up client ids cannot fill the cache.
+ */
+public class JpaRegisteredClientRepository implements RegisteredClientRepository {
+
+    private final ClientRepository clientRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Cache<String, RegisteredClient> byId;
+
+    private final Cache<String, RegisteredClient> byClientId;
+
+    public JpaRegisteredClientRepository(ClientRepository clientRepository, long maxSize, Duration ttl) {
+        this.clientRepository = clientRepository;
+        this.byId = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        this.byClientId = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+
+        ClassLoader classLoader = JpaRegisteredClientRepository.class.getClassLoader();
+        this.objectMapper.registerModules(SecurityJackson2Modules.getModules(classLoader));
+        this.objectMapper.registerModule(new OAuth2AuthorizationServerJackson2Module());
+    }
+
+    @Override
+    public void save(RegisteredClient registeredClient) {
+        Assert.notNull(registeredClient, "registeredClient cannot be null");
+        clientRepository.save(toEntity(registeredClient));
+
+        // The client id may have changed, so drop whatever the cached version was indexed under as well
+        RegisteredClient cached = byId.getIfPresent(registeredClient.getId());
+        if (cached != null) {
+            byClientId.invalidate(cached.getClientId());
+        }
+        byId.invalidate(registeredClient.getId());
+        byClientId.invalidate(registeredClient.getClientId());
+    }
+
+    @Override
+    public RegisteredClient findById(String id) {
+        Assert.hasText(id, "id cannot be empty");
+        return byId.get(id, key -> index(clientRepository.findById(key).map(this::toObject).orElse(null), byClientId,
+                RegisteredClient::getClientId));
+    }
+
+    @Override
+    public RegisteredClient findByClientId(String clientId) {
+        Assert.hasText(clientId, "clientId cannot be empty");
+        return byClientId.get(clientId, key -> index(clientRepository.findByClientId(key).map(this::toObject).orElse(null), byId,
+                RegisteredClient::getId));
+    }
+
+    // A client loaded under one key is cached under the other as well
+    private static RegisteredClient index(RegisteredClient client, Cache<String, RegisteredClient> other,
+                                          Function<RegisteredClient, String> key) {
+        if (client != null) {
+            other.put(key.apply(client), client);
+        }
+        return client;
+    }
+
+    private RegisteredClient toObject(Client client) {
+        RegisteredClient.Builder builder = RegisteredClient.withId(client.getId())
+                .clientId(client.getClientId())
+                .clientIdIssuedAt(client.getClientIdIssuedAt())
+                .clientSecret(client.getClientSecret())
+                .clientSecretExpiresAt(client.getClientSecretExpiresAt())
+                .clientName(client.getClientName())
+                .clientAuthenticationMethods(methods -> split(client.getClientAuthenticationMethods())
+                        .forEach(method -> methods.add(new ClientAuthenticationMethod(method))))
+                .authorizationGrantTypes(grantTypes -> split(client.getAuthorizationGrantTypes())
+                        .forEach(grantType -> grantTypes.add(new AuthorizationGrantType(grantType))))
+                .redirectUris(uris -> uris.addAll(split(client.getRedirectUris())))
+                .postLogoutRedirectUris(uris -> uris.addAll(split(client.getPostLogoutRedirectUris())))
+                .scopes(scopes -> scopes.addAll(split(client.getScopes())));
+        builder.clientSettings(ClientSettings.withSettings(parseMap(client.getClientSettings())).build());
+        builder.tokenSettings(TokenSettings.withSettings(parseMap(client.getTokenSettings())).build());
+        return builder.build();
+    }
+
+    private Client toEntity(RegisteredClient registeredClient) {
+        Client entity = new Client();
+        entity.setId(registeredClient.getId());
+        entity.setClientId(registeredClient.getClientId());
+        entity.setClientIdIssuedAt(registeredClient.getClientIdIssuedAt());
+        entity.setClientSecret(registeredClient.getClientSecret());
+        entity.setClientSecretExpiresAt(registeredClient.getClientSecretExpiresAt());
+        entity.setClientName(registeredClient.getClientName());
+        entity.setClientAuthenticationMethods(join(registeredClient.getClientAuthenticationMethods().stream()
+                .map(ClientAuthenticationMethod::getValue).collect(Collectors.toSet())));
+        entity.setAuthorizationGrantTypes(join(registeredClient.getAuthorizationGrantTypes().stream()
+                .map(AuthorizationGrantType::getValue).collect(Collectors.toSet())));
+        entity.setRedirectUris(join(registeredClient.getRedirectUris()));
+        entity.setPostLogoutRedirectUris(join(registeredClient.getPostLogoutRedirectUris()));
+        entity.setScopes(join(registeredClient.getScopes()));
+        entity.setClientSettings(writeMap(registeredClient.getClientSettings().getSettings()));
+        entity.setTokenSettings(writeMap(registeredClient.getTokenSettings().getSettings()));
+        return entity;
+    }
+
+    private static Set<String> split(String values) {
+        return StringUtils.commaDelimitedListToSet(values);
+    }
+
+    private static String join(Set<String> values) {
+        return StringUtils.collectionToCommaDelimitedString(values);
+    }
+
+    private Map<String, Object> parseMap(String data) {
+        try {
+            return objectMapper.readValue(data, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private String writeMap(Map<String, Object> data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.oauth.auth_server.service;
+
+import com.oauth.auth_server.model.User;
+import com.oauth.auth_server.password.BoundedPasswordEncoder;
+import com.oauth.auth_server.password.PasswordHashingRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+
+/**
+ * Rehashes a password stored with an outdated algorithm or cost after a successful login, on the hashing pool so
+ * the login response is not held up. When the pool is full the rehash is skipped and done at a later login.
+ */
+@Service
+public class PasswordUpgradeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordUpgradeService.class);
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Form login. The global authentication manager leaves the password on the event (see SecurityConfig);
+     * the filter chain's manager erases it once the event is handled.
+     */
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        if (event.getAuthentication() instanceof UsernamePasswordAuthenticationToken authentication
+                && authentication.getPrincipal() instanceof UserDetails userDetails
+                && authentication.getCredentials() instanceof String password
+                && passwordEncoder.upgradeEncoding(userDetails.getPassword())) {
+            rehash(userDetails.getUsername(), password, () -> userService.findByUsername(userDetails.getUsername()));
+        }
+    }
+
+    /**
+     * {@code /api/auth/login}, which has the user at hand already.
+     */
+    public void upgradeIfOutdated(User user, String password) {
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            rehash(user.getUsername(), password, () -> user);
+        }
+    }
+
+    private void rehash(String username, String password, Supplier<User> user) {
+        try {
+            passwordEncoder.encodeAsync(password)
+                    .thenAccept(encodedPassword -> {
+                        User stored = user.get();
+                        if (stored != null) {
+                            userService.updatePassword(stored, encodedPassword);
+                        }
+                    })
+                    .exceptionally(e -> {
+                        logger.warn("Couldn't rehash the password of {}: {}", username, e.getMessage());
+                        return null;
+                    });
+        } catch (PasswordHashingRejectedException e) {
+            logger.debug("Hashing pool full, not rehashing the password of {} now", username);
+        }
+    }
+}
@@ -5,6 +5,9 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -16,13 +19,19 @@ public class TokenBlacklistService {
     private static final String BLACKLIST_PREFIX = "blacklist:";
     private static final String SESSION_PREFIX = "session:";
     private static final String JTI_PREFIX = "jti:";
+    private static final String REVOCATION_CHANNEL = "token-revocations";
 
     /**
-     * Blacklist a JWT token by its JTI (JWT ID)
+     * Blacklist a JWT token by its JTI (JWT ID) and notify gateways subscribed to revocations
      */
     public void blacklistToken(String jti, Duration ttl) {
         String key = BLACKLIST_PREFIX + jti;
         redisTemplate.opsForValue().set(key, "revoked", ttl.toSeconds(), TimeUnit.SECONDS);
+
+        Map<String, Object> revocation = new HashMap<>();
+        revocation.put("jti", jti);
+        revocation.put("expiresAt", Instant.now().plus(ttl).toEpochMilli());
+        redisTemplate.convertAndSend(REVOCATION_CHANNEL, revocation);
     }
 
     /**
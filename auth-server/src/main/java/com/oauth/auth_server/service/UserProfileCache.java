@@ -0,0 +1,57 @@
+package com.oauth.auth_server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oauth.auth_server.model.User;
+import com.oauth.auth_server.model.UserProfile;
+import com.oauth.auth_server.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Per-instance cache of user profiles by username, read by form login and {@code /userinfo}.
+ * <p>
+ * Changes made through {@link UserService} drop the affected entry right away; changes made on another instance or
+ * straight in the database show up here once the entry expires. Unknown usernames are not cached, so lookups of
+ * made-up names cannot fill the cache.
+ */
+@Component
+public class UserProfileCache {
+
+    private final UserRepository userRepository;
+
+    private final Cache<String, UserProfile> profiles;
+
+    public UserProfileCache(UserRepository userRepository,
+                            @Value("${auth.users.cache.max-size:10000}") long maxSize,
+                            @Value("${auth.users.cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.profiles = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+    }
+
+    /**
+     * Returns the profile of the given user, or null if there is no such user.
+     */
+    public UserProfile get(String username) {
+        if (username == null) {
+            return null;
+        }
+        return profiles.get(username, key -> userRepository.findProfileByUsername(key).orElse(null));
+    }
+
+    /**
+     * Drops the cached profile of a user that was just saved, under its current and any previous username.
+     */
+    public void invalidate(User user) {
+        if (user.getUsername() != null) {
+            profiles.invalidate(user.getUsername());
+        }
+        // A rename leaves the profile cached under the old name; saves are rare enough to scan for it
+        if (user.getId() != null) {
+            profiles.asMap().values().removeIf(profile -> Objects.equals(profile.id(), user.getId()));
+        }
+    }
+}
@@ -14,8 +14,13 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserProfileCache userProfileCache;
+
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userProfileCache.invalidate(saved);
+        return saved;
     }
 
     public User findByUsername(String username) {
@@ -36,11 +41,21 @@ public class UserService {
         User user = findById(userId);
         if (user != null) {
             user.setRole(newRole);
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            userProfileCache.invalidate(saved);
+            return saved;
         }
         throw new RuntimeException("User not found with id: " + userId);
     }
 
+    /**
+     * Replaces the stored password hash, e.g. with one of the current algorithm and cost after a successful login.
+     */
+    public User updatePassword(User user, String encodedPassword) {
+        user.setPassword(encodedPassword);
+        return saveUser(user);
+    }
+
     public boolean existsByUsername(String username) {
         return userRepository.existsByUsername(username);
     }
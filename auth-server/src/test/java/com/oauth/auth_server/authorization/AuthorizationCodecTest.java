@@ -0,0 +1,154 @@
+package com.oauth.auth_server.authorization;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcScopes;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class AuthorizationCodecTest {
+
+    private final AuthorizationCodec codec = new AuthorizationCodec();
+
+    private final RegisteredClient client = RegisteredClient.withId("client-id")
+            .clientId("react-client")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.NONE)
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .authorizationGrantType(AuthorizationGrantType.REFRESH_TOKEN)
+            .redirectUri("http://localhost:3000/callback")
+            .scope(OidcScopes.OPENID)
+            .scope("api.read")
+            .build();
+
+    // Second precision, the way the authorization server issues tokens
+    private final Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Test
+    void roundTripsAnIssuedAuthorization() {
+        OAuth2Authorization authorization = issued();
+
+        OAuth2Authorization decoded = codec.decode(codec.encode(authorization), this::findClient);
+
+        assertThat(decoded.getId()).isEqualTo(authorization.getId());
+        assertThat(decoded.getRegisteredClientId()).isEqualTo("client-id");
+        assertThat(decoded.getPrincipalName()).isEqualTo("user");
+        assertThat(decoded.getAuthorizationGrantType()).isEqualTo(AuthorizationGrantType.AUTHORIZATION_CODE);
+        assertThat(decoded.getAuthorizedScopes()).containsExactlyInAnyOrder(OidcScopes.OPENID, "api.read");
+
+        OAuth2AccessToken accessToken = decoded.getAccessToken().getToken();
+        assertThat(accessToken.getTokenValue()).isEqualTo("access-token");
+        assertThat(accessToken.getTokenType()).isEqualTo(OAuth2AccessToken.TokenType.BEARER);
+        assertThat(accessToken.getScopes()).containsExactlyInAnyOrder(OidcScopes.OPENID, "api.read");
+        assertThat(accessToken.getIssuedAt()).isEqualTo(issuedAt);
+        assertThat(accessToken.getExpiresAt()).isEqualTo(issuedAt.plus(15, ChronoUnit.MINUTES));
+        assertThat(decoded.getAccessToken().getClaims()).containsEntry("sub", "user").containsEntry("jti", "jti-1");
+
+        assertThat(decoded.getRefreshToken().getToken().getTokenValue()).isEqualTo("refresh-token");
+        OAuth2Authorization.Token<OidcIdToken> idToken = decoded.getToken(OidcIdToken.class);
+        assertThat(idToken.getToken().getTokenValue()).isEqualTo("id-token");
+        assertThat(idToken.getToken().getSubject()).isEqualTo("user");
+
+        OAuth2Authorization.Token<OAuth2AuthorizationCode> code = decoded.getToken(OAuth2AuthorizationCode.class);
+        assertThat(code.getToken().getTokenValue()).isEqualTo("code");
+        assertThat(code.isInvalidated()).isTrue();
+    }
+
+    @Test
+    void roundTripsTheAuthorizationAttributes() {
+        OAuth2Authorization decoded = codec.decode(codec.encode(issued()), this::findClient);
+
+        OAuth2AuthorizationRequest request = decoded.getAttribute(OAuth2AuthorizationRequest.class.getName());
+        assertThat(request.getClientId()).isEqualTo("react-client");
+        assertThat(request.getState()).isEqualTo("state");
+        assertThat(request.getAdditionalParameters()).containsEntry("code_challenge", "challenge");
+
+        UsernamePasswordAuthenticationToken principal = decoded.getAttribute(Principal.class.getName());
+        assertThat(principal.getName()).isEqualTo("user");
+        assertThat(principal.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void roundTripsAPendingAuthorization() {
+        OAuth2Authorization pending = OAuth2Authorization.withRegisteredClient(client)
+                .id("pending")
+                .principalName("user")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .attribute(OAuth2ParameterNames.STATE, "state")
+                .build();
+
+        OAuth2Authorization decoded = codec.decode(codec.encode(pending), this::findClient);
+
+        assertThat(decoded.getAccessToken()).isNull();
+        assertThat(decoded.getRefreshToken()).isNull();
+        assertThat(decoded.<String>getAttribute(OAuth2ParameterNames.STATE)).isEqualTo("state");
+    }
+
+    @Test
+    void rejectsAuthorizationsOfUnknownClients() {
+        byte[] encoded = codec.encode(issued());
+
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.decode(encoded, id -> null));
+    }
+
+    @Test
+    void roundTripsAuthorities() {
+        List<String> authorities = List.of("ROLE_USER", "ROLE_ADMIN");
+
+        assertThat(codec.decodeAuthorities(codec.encodeAuthorities(authorities))).isEqualTo(authorities);
+    }
+
+    private RegisteredClient findClient(String id) {
+        return client.getId().equals(id) ? client : null;
+    }
+
+    private OAuth2Authorization issued() {
+        OAuth2AuthorizationRequest request = OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("http://localhost:9000/oauth2/authorize")
+                .clientId("react-client")
+                .redirectUri("http://localhost:3000/callback")
+                .scopes(Set.of(OidcScopes.OPENID, "api.read"))
+                .state("state")
+                .additionalParameters(Map.of("code_challenge", "challenge", "code_challenge_method", "S256"))
+                .build();
+        UsernamePasswordAuthenticationToken principal = UsernamePasswordAuthenticationToken.authenticated(
+                "user", null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        Instant expiresAt = issuedAt.plus(15, ChronoUnit.MINUTES);
+
+        return OAuth2Authorization.withRegisteredClient(client)
+                .id("authorization-id")
+                .principalName("user")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .authorizedScopes(Set.of(OidcScopes.OPENID, "api.read"))
+                .attribute(OAuth2AuthorizationRequest.class.getName(), request)
+                .attribute(Principal.class.getName(), principal)
+                .token(new OAuth2AuthorizationCode("code", issuedAt, issuedAt.plus(5, ChronoUnit.MINUTES)),
+                        metadata -> metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+                .token(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-token", issuedAt, expiresAt,
+                                Set.of(OidcScopes.OPENID, "api.read")),
+                        metadata -> metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME,
+                                Map.of("sub", "user", "jti", "jti-1", "roles", List.of("ROLE_USER"))))
+                .refreshToken(new OAuth2RefreshToken("refresh-token", issuedAt, issuedAt.plus(1, ChronoUnit.DAYS)))
+                .token(new OidcIdToken("id-token", issuedAt, expiresAt, Map.of("sub", "user")),
+                        metadata -> metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME, Map.of("sub", "user")))
+                .build();
+    }
+}
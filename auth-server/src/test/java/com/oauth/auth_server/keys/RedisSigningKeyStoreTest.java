@@ -0,0 +1,115 @@
+package com.oauth.auth_server.keys;
+
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RedisSigningKeyStoreTest {
+
+    private static final String KEY = "auth:signing-keys";
+
+    private static final String ENCRYPTION_KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final Map<String, Object> redis = new HashMap<>();
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private JWKSet keys;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> operations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(operations);
+        when(operations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(operations).set(anyString(), any());
+        when(operations.setIfAbsent(anyString(), any()))
+                .thenAnswer(invocation -> redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        keys = new JWKSet(new ECKeyGenerator(Curve.P_256).keyID("key-1").generate());
+    }
+
+    @Test
+    void storesTheKeysEncrypted() throws IOException {
+        RedisSigningKeyStore store = new RedisSigningKeyStore(redisTemplate, KEY, ENCRYPTION_KEY);
+
+        store.save(keys);
+
+        String stored = (String) redis.get(KEY);
+        assertThat(stored).startsWith("aes-gcm:").doesNotContain("key-1").doesNotContain("\"d\"");
+        JWKSet loaded = store.load();
+        assertThat(loaded.getKeyByKeyId("key-1").isPrivate()).isTrue();
+        assertThat(loaded.getKeyByKeyId("key-1")).isEqualTo(keys.getKeyByKeyId("key-1"));
+    }
+
+    @Test
+    void savesOnlyIfAbsent() throws Exception {
+        RedisSigningKeyStore store = new RedisSigningKeyStore(redisTemplate, KEY, ENCRYPTION_KEY);
+        assertThat(store.saveIfAbsent(keys)).isTrue();
+
+        assertThat(store.saveIfAbsent(new JWKSet(new ECKeyGenerator(Curve.P_256).keyID("key-2").generate()))).isFalse();
+        assertThat(store.load().getKeyByKeyId("key-1")).isNotNull();
+    }
+
+    @Test
+    void readsKeysStoredBeforeEncryption() throws IOException {
+        redis.put(KEY, keys.toString(false));
+
+        JWKSet loaded = new RedisSigningKeyStore(redisTemplate, KEY, ENCRYPTION_KEY).load();
+
+        assertThat(loaded.getKeyByKeyId("key-1")).isNotNull();
+    }
+
+    @Test
+    void loadsNothingWhenNothingIsStored() throws IOException {
+        assertThat(new RedisSigningKeyStore(redisTemplate, KEY, ENCRYPTION_KEY).load().getKeys()).isEmpty();
+    }
+
+    @Test
+    void refusesAnotherEncryptionKey() throws IOException {
+        new RedisSigningKeyStore(redisTemplate, KEY, ENCRYPTION_KEY).save(keys);
+        byte[] other = new byte[32];
+        other[0] = 1;
+
+        RedisSigningKeyStore store = new RedisSigningKeyStore(redisTemplate, KEY, Base64.getEncoder().encodeToString(other));
+
+        assertThatThrownBy(store::load).isInstanceOf(IOException.class).hasMessageContaining("redis-encryption-key");
+    }
+
+    @Test
+    void refusesAValueCopiedFromAnotherKey() throws IOException {
+        new RedisSigningKeyStore(redisTemplate, KEY, ENCRYPTION_KEY).save(keys);
+        redis.put("other:signing-keys", redis.get(KEY));
+
+        RedisSigningKeyStore store = new RedisSigningKeyStore(redisTemplate, "other:signing-keys", ENCRYPTION_KEY);
+
+        assertThatThrownBy(store::load).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void requiresAValidEncryptionKey() {
+        assertThatIllegalStateException().isThrownBy(() -> new RedisSigningKeyStore(redisTemplate, KEY, ""));
+        assertThatIllegalStateException().isThrownBy(() -> new RedisSigningKeyStore(redisTemplate, KEY, "not base64!"));
+        assertThatIllegalStateException().isThrownBy(() -> new RedisSigningKeyStore(redisTemplate, KEY,
+                Base64.getEncoder().encodeToString(new byte[20])));
+    }
+}
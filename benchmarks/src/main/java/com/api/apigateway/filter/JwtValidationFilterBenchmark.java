@@ -0,0 +1,81 @@
+package com.api.apigateway.filter;
+
+import com.api.apigateway.service.ErrorResponseCatalogue;
+import com.api.apigateway.service.JwtValidationService;
+import com.api.benchmarks.BenchmarkTokens;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request work {@link JwtValidationFilter} does around validation: the public path check, injecting the
+ * user headers on success and serializing the error body on a 401.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationFilterBenchmark {
+
+    private JwtValidationFilter filter;
+
+    private ServerHttpRequest request;
+
+    private JwtValidationService.JWTValidationResult validationResult;
+
+    private ErrorResponseCatalogue errorResponseCatalogue;
+
+    private PublicPathMatcher publicPathMatcher;
+
+    @Setup
+    public void setUp() {
+        filter = new JwtValidationFilter();
+
+        JWTClaimsSet claimsSet = BenchmarkTokens.accessTokenClaims(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+        validationResult = new JwtValidationService.JWTValidationResult(true, "Token is valid", claimsSet,
+                List.of("ROLE_USER", "SCOPE_api.read"));
+        request = MockServerHttpRequest.get("/api/users/profile")
+                .header("Authorization", "Bearer benchmark")
+                .header("Accept", "application/json")
+                .build();
+
+        errorResponseCatalogue = new ErrorResponseCatalogue();
+
+        publicPathMatcher = new PublicPathMatcher(new String[]{
+                "/public", "/auth", "/oauth2", "/.well-known", "/fallback", "/actuator/health", "/actuator/info"});
+    }
+
+    @Benchmark
+    public ServerHttpRequest addUserInfoToHeaders() {
+        return filter.addUserInfoToHeaders(request, validationResult);
+    }
+
+    @Benchmark
+    public boolean isPublicPath() {
+        // One protected and one public path
+        return publicPathMatcher.isPublic("/api/user/profile") | publicPathMatcher.isPublic("/auth/login");
+    }
+
+    @Benchmark
+    public byte[] errorResponseBody() {
+        // The lookup createErrorResponse does for a 401
+        return errorResponseCatalogue.forStatus(HttpStatus.UNAUTHORIZED, "Token has been revoked").bytes();
+    }
+}
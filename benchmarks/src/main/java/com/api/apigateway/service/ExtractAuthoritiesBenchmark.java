@@ -0,0 +1,62 @@
+package com.api.apigateway.service;
+
+import com.api.benchmarks.BenchmarkTokens;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link JwtValidationService#extractAuthorities} for each claim shape it accepts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractAuthoritiesBenchmark {
+
+    @Param({"authorities", "scope-list", "scope-string"})
+    private String claim;
+
+    private JwtValidationService validationService;
+
+    private JWTClaimsSet claimsSet;
+
+    @Setup
+    public void setUp() {
+        // extractAuthorities only reads the claims set, none of the collaborators are touched
+        validationService = new JwtValidationService(null, null, null, null);
+
+        JWTClaimsSet accessToken = BenchmarkTokens.accessTokenClaims(new Date());
+        List<?> scopes = (List<?>) accessToken.getClaim("scope");
+        JWTClaimsSet.Builder builder = new JWTClaimsSet.Builder(accessToken)
+                .claim("authorities", null)
+                .claim("scope", null);
+        switch (claim) {
+            case "authorities" -> builder.claim("authorities", accessToken.getClaim("authorities"));
+            case "scope-list" -> builder.claim("scope", scopes);
+            default -> builder.claim("scope", scopes.stream().map(Object::toString).collect(Collectors.joining(" ")));
+        }
+        claimsSet = builder.build();
+    }
+
+    @Benchmark
+    public List<String> extractAuthorities() {
+        return validationService.extractAuthorities(claimsSet);
+    }
+}
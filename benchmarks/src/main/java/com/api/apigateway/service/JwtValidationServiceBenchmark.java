@@ -0,0 +1,73 @@
+package com.api.apigateway.service;
+
+import com.api.benchmarks.GatewayFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link JwtValidationService#validateToken} for one bearer token, as the filter calls it per request.
+ * <p>
+ * {@code cache=off} sets the validation cache TTL to zero so every call parses and verifies the signature.
+ * {@code revocation=redis} disables the revocation near-cache so every call asks (in-memory) Redis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationServiceBenchmark {
+
+    @Param({"RS256", "ES256"})
+    private String algorithm;
+
+    @Param({"on", "off"})
+    private String cache;
+
+    @Param({"near-cache", "redis"})
+    private String revocation;
+
+    private GatewayFixture fixture;
+
+    private JwtValidationService validationService;
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = new GatewayFixture(algorithm, Map.of(
+                "gateway.jwt.cache.ttl", "on".equals(cache) ? "5m" : "0s",
+                "gateway.jwt.revocation.enabled", "near-cache".equals(revocation)));
+        validationService = fixture.validationService();
+        token = fixture.issueToken();
+
+        JwtValidationService.JWTValidationResult result = validationService.validateToken(token).block();
+        if (result == null || !result.isValid()) {
+            throw new IllegalStateException("Benchmark token does not validate: " + (result != null ? result.getMessage() : null));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public JwtValidationService.JWTValidationResult validateToken() {
+        return validationService.validateToken(token).block();
+    }
+}
@@ -0,0 +1,36 @@
+package com.api.benchmarks;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Claims shaped like the access tokens auth-server issues after its token customizer has run.
+ */
+public final class BenchmarkTokens {
+
+    public static final String ISSUER = "http://localhost:9000";
+
+    private BenchmarkTokens() {
+    }
+
+    public static JWTClaimsSet accessTokenClaims(Date expiry) {
+        return new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("user")
+                .audience(List.of("react-client", "api-gateway"))
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(new Date())
+                .notBeforeTime(new Date())
+                .expirationTime(expiry)
+                .claim("scope", List.of("openid", "profile", "email", "api.read"))
+                .claim("username", "user")
+                .claim("email", "user@example.com")
+                .claim("preferred_username", "user")
+                .claim("roles", List.of("ROLE_USER"))
+                .claim("authorities", List.of("ROLE_USER"))
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.api.benchmarks;
+
+import com.api.apigateway.service.JwkSetManager;
+import com.api.apigateway.service.JwtValidationService;
+import com.api.apigateway.service.JwtVerificationEngine;
+import com.api.apigateway.service.RevokedTokenRegistry;
+import com.api.apigateway.service.TokenValidationCache;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The gateway's validation beans wired the way Spring Boot wires them, against a local signing key.
+ * The JWK set is served by a stubbed {@link WebClient} and Redis by {@link InMemoryReactiveRedisTemplate}.
+ */
+public final class GatewayFixture implements AutoCloseable {
+
+    private final AnnotationConfigApplicationContext context;
+
+    private final JWK signingKey;
+
+    private final InMemoryReactiveRedisTemplate redis = new InMemoryReactiveRedisTemplate();
+
+    /**
+     * @param algorithm     RS256 or ES256
+     * @param properties    gateway.* overrides on top of the application.yml defaults
+     */
+    public GatewayFixture(String algorithm, Map<String, Object> properties) throws JOSEException {
+        this.signingKey = generateKey(JWSAlgorithm.parse(algorithm));
+        String jwkSetJson = new JWKSet(signingKey.toPublicJWK()).toString();
+
+        Map<String, Object> environment = new HashMap<>();
+        environment.put("spring.security.oauth2.resourceserver.jwt.issuer-uri", BenchmarkTokens.ISSUER);
+        environment.put("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", BenchmarkTokens.ISSUER + "/oauth2/jwks");
+        environment.put("spring.security.oauth2.resourceserver.jwt.jws-algorithms", "RS256, ES256");
+        environment.putAll(properties);
+
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(jwkSetJson)
+                        .build()))
+                .build();
+
+        context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", environment));
+        context.registerBean(WebClient.class, () -> webClient);
+        context.registerBean(InMemoryReactiveRedisTemplate.class, () -> redis);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(JwkSetManager.class, JwtVerificationEngine.class, TokenValidationCache.class,
+                RevokedTokenRegistry.class, JwtValidationService.class);
+        context.refresh();
+
+        // Prefetches the JWK set and seeds the revocation near-cache like a started gateway
+        context.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0], context, Duration.ZERO));
+    }
+
+    public JwtValidationService validationService() {
+        return context.getBean(JwtValidationService.class);
+    }
+
+    public InMemoryReactiveRedisTemplate redis() {
+        return redis;
+    }
+
+    /**
+     * A freshly signed access token that expires in an hour.
+     */
+    public String issueToken() throws JOSEException {
+        JWSAlgorithm algorithm = JWSAlgorithm.parse(signingKey.getAlgorithm().getName());
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(algorithm).keyID(signingKey.getKeyID()).build(),
+                BenchmarkTokens.accessTokenClaims(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1))));
+        if (signingKey instanceof ECKey ecKey) {
+            jwt.sign(new ECDSASigner(ecKey));
+        } else {
+            jwt.sign(new RSASSASigner((RSAKey) signingKey));
+        }
+        return jwt.serialize();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static JWK generateKey(JWSAlgorithm algorithm) throws JOSEException {
+        String kid = UUID.randomUUID().toString();
+        if (JWSAlgorithm.Family.EC.contains(algorithm)) {
+            return new ECKeyGenerator(Curve.P_256).keyUse(KeyUse.SIGNATURE).algorithm(algorithm).keyID(kid).generate();
+        }
+        return new RSAKeyGenerator(2048).keyUse(KeyUse.SIGNATURE).algorithm(algorithm).keyID(kid).generate();
+    }
+}
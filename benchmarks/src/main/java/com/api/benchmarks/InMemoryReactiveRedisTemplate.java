@@ -0,0 +1,70 @@
+package com.api.benchmarks;
+
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stands in for Redis with the handful of template operations the gateway's blacklist code uses.
+ * Every reply is immediate, so the benchmarks measure the gateway rather than the network.
+ */
+public class InMemoryReactiveRedisTemplate extends ReactiveRedisTemplate<String, Object> {
+
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+
+    public InMemoryReactiveRedisTemplate() {
+        super(unusedConnectionFactory(), RedisSerializationContext.<String, Object>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.json())
+                .build());
+    }
+
+    public void addKey(String key) {
+        keys.add(key);
+    }
+
+    @Override
+    public Mono<Boolean> hasKey(String key) {
+        return Mono.just(keys.contains(key));
+    }
+
+    @Override
+    public Flux<String> scan(ScanOptions options) {
+        String prefix = options.getPattern() != null ? options.getPattern().replace("*", "") : "";
+        return Flux.fromIterable(keys).filter(key -> key.startsWith(prefix));
+    }
+
+    @Override
+    public Mono<Duration> getExpire(String key) {
+        return Mono.just(Duration.ofHours(1));
+    }
+
+    @Override
+    public Mono<Long> convertAndSend(String destination, Object message) {
+        return Mono.just(0L);
+    }
+
+    @Override
+    public Mono<Flux<? extends ReactiveSubscription.Message<String, Object>>> listenToChannelLater(String... channels) {
+        // An active subscription that never delivers, so the revocation near-cache counts as in sync
+        return Mono.just(Flux.never());
+    }
+
+    private static ReactiveRedisConnectionFactory unusedConnectionFactory() {
+        return (ReactiveRedisConnectionFactory) Proxy.newProxyInstance(
+                InMemoryReactiveRedisTemplate.class.getClassLoader(),
+                new Class<?>[]{ReactiveRedisConnectionFactory.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException("No Redis connection in benchmarks: " + method.getName());
+                });
+    }
+}
@@ -0,0 +1,89 @@
+package com.api.benchmarks;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify throughput of the algorithms auth-server can sign with (auth.signing-keys.algorithm).
+ * The claims mirror a customized access token so the payload size is realistic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureAlgorithmBenchmark {
+
+    @Param({"RS256", "ES256"})
+    private String algorithm;
+
+    private JWSSigner signer;
+
+    private JWSVerifier verifier;
+
+    private JWSHeader header;
+
+    private JWTClaimsSet claims;
+
+    private SignedJWT signedToken;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        JWSAlgorithm jwsAlgorithm = JWSAlgorithm.parse(algorithm);
+        if (JWSAlgorithm.Family.EC.contains(jwsAlgorithm)) {
+            ECKey key = new ECKeyGenerator(Curve.P_256).keyID("bench").generate();
+            signer = new ECDSASigner(key);
+            verifier = new ECDSAVerifier(key.toECPublicKey());
+        } else {
+            RSAKey key = new RSAKeyGenerator(2048).keyID("bench").generate();
+            signer = new RSASSASigner(key);
+            verifier = new RSASSAVerifier(key.toRSAPublicKey());
+        }
+        header = new JWSHeader.Builder(jwsAlgorithm).keyID("bench").build();
+        claims = BenchmarkTokens.accessTokenClaims(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+
+        signedToken = new SignedJWT(header, claims);
+        signedToken.sign(signer);
+    }
+
+    @Benchmark
+    public String sign() throws JOSEException {
+        SignedJWT jwt = new SignedJWT(header, claims);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+
+    @Benchmark
+    public boolean verify() throws JOSEException {
+        return signedToken.verify(verifier);
+    }
+}